@@ -0,0 +1,97 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dot product of two arrays of 100,000 numbers: a loop over `get` in a script, the `dot` native and plain Java.
+ * `kernels` chooses between the Vector API and plain loops for the native; `java` ignores it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ArrayBenchmark {
+    private static final int LENGTH = 100_000;
+
+    private static final String SETUP = String.join("\n",
+        "var a = array(" + LENGTH + ");",
+        "var b = array(" + LENGTH + ");",
+        "for (var i = 0; i < " + LENGTH + "; i = i + 1) {",
+        "    set(a, i, i * 0.5);",
+        "    set(b, i, 1 - i);",
+        "}",
+        "var result = 0;");
+
+    private static final String LOOP = String.join("\n",
+        "var total = 0;",
+        "for (var i = 0; i < length(a); i = i + 1) {",
+        "    total = total + get(a, i) * get(b, i);",
+        "}",
+        "result = total;");
+
+    private static final String NATIVE = "result = dot(a, b);";
+
+    @Param({"vector", "scalar"})
+    public String kernels;
+
+    private Interpreter interpreter;
+    private Script loop;
+    private Script dot;
+    private double[] a;
+    private double[] b;
+
+    @Setup
+    public void setUp() {
+        // read when the array natives are first used, which is below
+        System.setProperty("jynk.vector", Boolean.toString(kernels.equals("vector")));
+        interpreter = new Interpreter(new PrintStream(OutputStream.nullOutputStream()));
+        Script.compile(SETUP).run(interpreter);
+        loop = Script.compile(LOOP);
+        dot = Script.compile(NATIVE);
+
+        a = new double[LENGTH];
+        b = new double[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            a[i] = i * 0.5;
+            b[i] = 1 - i;
+        }
+    }
+
+    @Benchmark
+    public Interpreter loop() {
+        loop.run(interpreter);
+        return interpreter;
+    }
+
+    @Benchmark
+    public Interpreter dot() {
+        dot.run(interpreter);
+        return interpreter;
+    }
+
+    @Benchmark
+    public double java() {
+        double sum = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
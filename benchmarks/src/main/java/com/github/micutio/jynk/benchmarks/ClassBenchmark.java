@@ -0,0 +1,102 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of 20,000 objects with two fields, and 20,000 rounds of reading and writing the fields of one object.
+ * `shapes` uses class instances as they are, `uncached` the same without inline caches, so that every access looks
+ * the field up in the shape, and `maps` a map per object instead of an instance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassBenchmark {
+    private static final String CLASS = String.join("\n",
+        "class Vec {",
+        "    init(x, y) {",
+        "        this.x = x;",
+        "        this.y = y;",
+        "    }",
+        "}");
+
+    private static final String INSTANTIATE = String.join("\n",
+        "var v;",
+        "for (var i = 0; i < 20000; i = i + 1) {",
+        "    v = Vec(i, i + 1);",
+        "}");
+
+    private static final String INSTANTIATE_MAPS = String.join("\n",
+        "var v;",
+        "for (var i = 0; i < 20000; i = i + 1) {",
+        "    v = map();",
+        "    set(v, \"x\", i);",
+        "    set(v, \"y\", i + 1);",
+        "}");
+
+    private static final String ACCESS = String.join("\n",
+        "var v = Vec(0, 1);",
+        "var sum = 0;",
+        "for (var i = 0; i < 20000; i = i + 1) {",
+        "    v.x = v.x + v.y;",
+        "    sum = sum + v.x;",
+        "}");
+
+    private static final String ACCESS_MAPS = String.join("\n",
+        "var v = map();",
+        "set(v, \"x\", 0);",
+        "set(v, \"y\", 1);",
+        "var sum = 0;",
+        "for (var i = 0; i < 20000; i = i + 1) {",
+        "    set(v, \"x\", get(v, \"x\") + get(v, \"y\"));",
+        "    sum = sum + get(v, \"x\");",
+        "}");
+
+    @Param({"shapes", "uncached", "maps"})
+    public String design;
+
+    private Script instantiate;
+    private Script access;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() {
+        // read when the interpreter is first used, which is in the benchmark
+        System.setProperty("jynk.inlinecache", Boolean.toString(!design.equals("uncached")));
+        boolean maps = design.equals("maps");
+        instantiate = Script.compile(maps ? INSTANTIATE_MAPS : CLASS + INSTANTIATE);
+        access = Script.compile(maps ? ACCESS_MAPS : CLASS + ACCESS);
+        out = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Interpreter instantiate() {
+        Interpreter interpreter = new Interpreter(out);
+        instantiate.run(interpreter);
+        return interpreter;
+    }
+
+    @Benchmark
+    public Interpreter access() {
+        Interpreter interpreter = new Interpreter(out);
+        access.run(interpreter);
+        return interpreter;
+    }
+}
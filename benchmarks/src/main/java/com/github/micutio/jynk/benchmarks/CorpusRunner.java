@@ -0,0 +1,201 @@
+package com.github.micutio.jynk.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the benchmark corpus, the Ynk scripts in `corpus/`, on every selected engine in this process. Each script is
+ * run a number of times to warm up and then measured: mean and fastest time per run, bytes allocated per run and the
+ * peak heap usage. Results are written as JSON, one result per line.
+ *
+ * With a baseline, a previous result file, every result that is slower than its baseline by more than the threshold
+ * is reported as a regression and the runner exits with status 1. Baselines only compare runs on the same machine with
+ * the same options, so none is committed, see the README for how to record one. The runner also reports engines whose output
+ * differs from that of the first engine.
+ *
+ * Usage: `java -cp benchmarks.jar com.github.micutio.jynk.benchmarks.CorpusRunner [--warmup n] [--iterations n]
+ * [--engines interpreter,unoptimized,compiled] [--out file] [--baseline file] [--threshold percent]`
+ */
+public class CorpusRunner {
+    static final List<String> SCRIPTS = List.of("fib", "loops", "strings", "blocks", "scopes");
+
+    private static final Pattern BASELINE_ENTRY =
+        Pattern.compile("\"engine\": \"(\\w+)\", \"script\": \"(\\w+)\", \"meanMillis\": ([0-9.eE+-]+)");
+
+    private static class Result {
+        final String engine;
+        final String script;
+        final double meanMillis;
+        final double minMillis;
+        final long allocatedBytes;
+        final long peakHeapBytes;
+
+        Result(String engine, String script, double meanMillis, double minMillis, long allocatedBytes,
+               long peakHeapBytes) {
+            this.engine = engine;
+            this.script = script;
+            this.meanMillis = meanMillis;
+            this.minMillis = minMillis;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                "{\"engine\": \"%s\", \"script\": \"%s\", \"meanMillis\": %.3f, \"minMillis\": %.3f, "
+                    + "\"allocatedBytes\": %d, \"peakHeapBytes\": %d}",
+                engine, script, meanMillis, minMillis, allocatedBytes, peakHeapBytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int warmup = 10;
+        int iterations = 20;
+        List<Engine> engines = Arrays.asList(Engine.values());
+        Path out = null;
+        Path baseline = null;
+        double threshold = 10;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--iterations": iterations = Integer.parseInt(value); break;
+                case "--out": out = Paths.get(value); break;
+                case "--baseline": baseline = Paths.get(value); break;
+                case "--threshold": threshold = Double.parseDouble(value); break;
+                case "--engines":
+                    engines = new ArrayList<>();
+                    for (String label: value.split(",")) {
+                        engines.add(Engine.byLabel(label));
+                    }
+                    break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (String script: SCRIPTS) {
+            String source = load(script);
+            String expected = null;
+            for (Engine engine: engines) {
+                String output = outputOf(engine, source);
+                if (expected == null) {
+                    expected = output;
+                } else if (!output.equals(expected)) {
+                    System.err.printf("%s prints something else for %s than %s%n",
+                        engine.label(), script, engines.get(0).label());
+                }
+                results.add(measure(engine, script, source, warmup, iterations));
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\n  \"results\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append("    ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        json.append("  ]\n}\n");
+        if (out == null) {
+            System.out.print(json);
+        } else {
+            Files.writeString(out, json);
+        }
+
+        if (baseline != null && regressions(results, Files.readString(baseline), threshold) > 0) {
+            System.exit(1);
+        }
+    }
+
+    static String load(String script) throws IOException {
+        try (InputStream in = CorpusRunner.class.getResourceAsStream("/corpus/" + script + ".ynk")) {
+            if (in == null) {
+                throw new IOException("Missing benchmark script " + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String outputOf(Engine engine, String source) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        engine.prepare(source, new PrintStream(bytes, true, StandardCharsets.UTF_8)).run();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Result measure(Engine engine, String script, String source, int warmup, int iterations) {
+        Runnable run = engine.prepare(source, new PrintStream(OutputStream.nullOutputStream()));
+        for (int i = 0; i < warmup; i++) {
+            run.run();
+        }
+
+        // allocations are only counted for this thread, which is where the scripts run
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap.add(pool);
+            }
+        }
+        System.gc();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long total = 0;
+        long fastest = Long.MAX_VALUE;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            run.run();
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            fastest = Math.min(fastest, elapsed);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool: heap) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return new Result(engine.label(), script, total / 1e6 / iterations, fastest / 1e6, allocated / iterations,
+            peak);
+    }
+
+    private static int regressions(List<Result> results, String baseline, double threshold) {
+        Map<String, Double> baselineMillis = new HashMap<>();
+        Matcher matcher = BASELINE_ENTRY.matcher(baseline);
+        while (matcher.find()) {
+            baselineMillis.put(matcher.group(1) + "/" + matcher.group(2), Double.parseDouble(matcher.group(3)));
+        }
+
+        int count = 0;
+        for (Result result: results) {
+            Double before = baselineMillis.get(result.engine + "/" + result.script);
+            if (before != null && result.meanMillis > before * (1 + threshold / 100)) {
+                System.err.printf(Locale.ROOT, "regression: %s on %s takes %.3f ms, %.1f%% more than %.3f ms%n",
+                    result.script, result.engine, result.meanMillis, (result.meanMillis / before - 1) * 100, before);
+                count++;
+            }
+        }
+        return count;
+    }
+}
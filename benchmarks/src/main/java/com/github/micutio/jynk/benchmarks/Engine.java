@@ -0,0 +1,73 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.CompiledScript;
+import com.github.micutio.jynk.ErrorReporter;
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.compiler.ScriptCompiler;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import com.github.micutio.jynk.lexing.Scanner;
+import com.github.micutio.jynk.parsing.Parser;
+import com.github.micutio.jynk.parsing.Resolver;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ways of executing Ynk code that `CorpusRunner` can compare.
+ */
+enum Engine {
+    /** Scripts as the command line runs them: compiled with all optimizations, run by the tree-walking interpreter. */
+    INTERPRETER {
+        @Override
+        Runnable prepare(String source, PrintStream out) {
+            Script script = Script.compile(source);
+            checkErrors(script.hasErrors());
+            return () -> script.run(new Interpreter(out));
+        }
+    },
+
+    /** The interpreter on the resolved syntax tree, without the loop optimizer. */
+    UNOPTIMIZED {
+        @Override
+        Runnable prepare(String source, PrintStream out) {
+            ErrorReporter reporter = new ErrorReporter();
+            List<Stmt> parsed = new Parser(new Scanner(source, reporter).scanTokens(), reporter).parse();
+            checkErrors(reporter.hadError());
+            List<Stmt> statements = new Resolver().resolve(parsed);
+            return () -> new Interpreter(out).interpret(statements);
+        }
+    },
+
+    /** Compiled ahead of time to JVM classes by `jynkc`, then loaded into this process. */
+    COMPILED {
+        @Override
+        Runnable prepare(String source, PrintStream out) {
+            Script script = Script.compile(source);
+            checkErrors(script.hasErrors());
+            CompiledScript compiled = ScriptCompiler.load(script, "Benchmark");
+            return () -> compiled.run(new Interpreter(out));
+        }
+    };
+
+    /**
+     * Compile the source code once.
+     * @param out stream that `print` statements write to
+     * @return a task that runs the code once in a fresh context
+     */
+    abstract Runnable prepare(String source, PrintStream out);
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Engine byLabel(String label) {
+        return valueOf(label.toUpperCase(Locale.ROOT));
+    }
+
+    private static void checkErrors(boolean hasErrors) {
+        if (hasErrors) {
+            throw new IllegalArgumentException("Benchmark script does not compile.");
+        }
+    }
+}
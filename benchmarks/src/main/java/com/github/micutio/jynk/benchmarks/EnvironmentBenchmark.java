@@ -0,0 +1,49 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.parsing.Environment;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * `Environment.get` of a variable that is defined `depth` scopes above the current one.
+ * Every scope also defines a few other variables, like block scopes of a real program.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvironmentBenchmark {
+    @Param({"0", "1", "4", "16"})
+    public int depth;
+
+    private Environment innermost;
+
+    @Setup
+    public void setUp() {
+        Environment environment = new Environment();
+        environment.define("target", 1.0);
+        for (int i = 0; i < depth; i++) {
+            environment = new Environment(environment);
+            environment.define("local" + i, (double) i);
+            environment.define("counter" + i, (double) i);
+        }
+        innermost = environment;
+    }
+
+    @Benchmark
+    public Object get() {
+        return innermost.get("target", 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Streaming through a log file of 500,000 lines with the file natives:
+ * `count` only finds the lines, `filter` also searches each line for a text, `decode` turns each line into a string.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileBenchmark {
+    private static final int LINES = 500_000;
+
+    @Param({"count", "filter", "decode"})
+    public String mode;
+
+    private Path file;
+    private Script script;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("ynk-log", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < LINES; i++) {
+                writer.write((i % 7 == 0 ? "ERROR" : "INFO") + " request " + i + " took " + (i % 997) + " ms\n");
+            }
+        }
+
+        String body;
+        switch (mode) {
+            case "count": body = "n = n + 1;"; break;
+            case "filter": body = "if (lineContains(reader, \"ERROR\")) n = n + 1;"; break;
+            case "decode": body = "var text = line(reader); n = n + 1;"; break;
+            default: throw new IllegalArgumentException(mode);
+        }
+        script = Script.compile(String.join("\n",
+            "var reader = lines(\"" + file + "\");",
+            "var n = 0;",
+            "while (nextLine(reader)) {",
+            "    " + body,
+            "}",
+            "print n;"));
+        out = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Interpreter run() {
+        Interpreter interpreter = new Interpreter(out);
+        script.run(interpreter);
+        return interpreter;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.parsing.Environment;
+import com.github.micutio.jynk.parsing.GlobalEnvironment;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads and writes of global variables from several threads, comparing `GlobalEnvironment` with an `Environment`
+ * that serializes all access through a lock.
+ * Run `read` with `-t 1`, `-t 2`, `-t 4` and so on to see how reads scale across cores. `readWrite` runs three
+ * readers alongside a writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalEnvironmentBenchmark {
+    private static final int VARIABLES = 64;
+
+    @Param({"concurrent", "locked"})
+    public String globals;
+
+    private Environment environment;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        environment = globals.equals("concurrent") ? new GlobalEnvironment() : new LockedEnvironment();
+        names = new String[VARIABLES];
+        for (int i = 0; i < VARIABLES; i++) {
+            names[i] = "global" + i;
+            environment.define(names[i], (double) i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = 0;
+
+        String advance(String[] names) {
+            next = (next + 1) % names.length;
+            return names[next];
+        }
+    }
+
+    @Benchmark
+    public Object read(Cursor cursor) {
+        return environment.get(cursor.advance(names), 1);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Object reader(Cursor cursor) {
+        return environment.get(cursor.advance(names), 1);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer(Cursor cursor) {
+        environment.assign(cursor.advance(names), (double) cursor.next, 1);
+    }
+
+    /**
+     * The alternative to a concurrent map: guard every access to a plain `Environment` with its monitor.
+     */
+    static class LockedEnvironment extends Environment {
+        @Override
+        public synchronized void define(String name, Object value) {
+            super.define(name, value);
+        }
+
+        @Override
+        public synchronized Object get(String name, int line) {
+            return super.get(name, line);
+        }
+
+        @Override
+        public synchronized void assign(String name, Object value, int line) {
+            super.assign(name, value, line);
+        }
+    }
+}
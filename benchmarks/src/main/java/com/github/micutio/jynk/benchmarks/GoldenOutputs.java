@@ -0,0 +1,129 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.compiler.ScriptCompiler;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that every engine gives the same result for a set of Ynk scripts: the interpreter, the interpreter without
+ * type inference (`-Djynk.infer=false`) and the script compiled by `jynkc`. Each script runs in a new process, and its
+ * output, error output and exit status are compared with the `.expected` file next to the script. The interpreter
+ * announces the script it parses on its first line of output, which is left out.
+ *
+ * By default, the checker runs the benchmark corpus and the scripts in `golden`, which cover closures, classes and
+ * runtime errors, from the source tree. With `--update`, it writes the result of the interpreter as the new expected
+ * result of each script instead, which has to be reviewed before it is committed. Exits with status 1 if any result
+ * differs.
+ *
+ * Usage, from the root of the repository: `java -cp benchmarks/target/benchmarks.jar
+ * com.github.micutio.jynk.benchmarks.GoldenOutputs [--update] [directory...]`
+ */
+public class GoldenOutputs {
+    private static final List<String> DIRECTORIES =
+        List.of("benchmarks/src/main/resources/corpus", "benchmarks/src/main/resources/golden");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean update = args.length > 0 && args[0].equals("--update");
+        List<String> directories = new ArrayList<>(List.of(args).subList(update ? 1 : 0, args.length));
+        if (directories.isEmpty()) {
+            directories.addAll(DIRECTORIES);
+        }
+
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String classPath = System.getProperty("java.class.path");
+        int failures = 0;
+        int checked = 0;
+        for (Path script: scripts(directories)) {
+            Path expectedFile = Paths.get(script.toString().replaceFirst("\\.ynk$", ".expected"));
+            String interpreted = run(true, java, "-cp", classPath, "com.github.micutio.jynk.Ynk", script.toString());
+            if (update) {
+                Files.writeString(expectedFile, interpreted);
+                System.out.println("updated  " + expectedFile);
+                continue;
+            }
+
+            if (!Files.exists(expectedFile)) {
+                System.out.println("MISSING  " + expectedFile);
+                failures++;
+                continue;
+            }
+            String expected = Files.readString(expectedFile);
+            failures += check(script, "interpreter", expected, interpreted);
+            failures += check(script, "uninferred", expected, run(true, java, "-Djynk.infer=false", "-cp", classPath,
+                "com.github.micutio.jynk.Ynk", script.toString()));
+            failures += check(script, "compiled", expected, compiled(java, script));
+            checked++;
+        }
+
+        if (!update) {
+            System.out.println(checked + " scripts checked, " + failures + " results differ");
+            System.exit(failures == 0 ? 0 : 1);
+        }
+    }
+
+    private static List<Path> scripts(List<String> directories) throws IOException {
+        List<Path> scripts = new ArrayList<>();
+        for (String directory: directories) {
+            try (Stream<Path> files = Files.list(Paths.get(directory))) {
+                files.filter(file -> file.toString().endsWith(".ynk")).sorted().forEach(scripts::add);
+            }
+        }
+        return scripts;
+    }
+
+    private static int check(Path script, String engine, String expected, String actual) {
+        if (expected.equals(actual)) {
+            System.out.println("ok       " + script + " (" + engine + ")");
+            return 0;
+        }
+        System.out.println("DIFFERS  " + script + " (" + engine + ")");
+        System.out.println("expected:\n" + expected + "actual:\n" + actual);
+        return 1;
+    }
+
+    /**
+     * Compile the script in this process, like `jynkc` does, and run the jar.
+     */
+    private static String compiled(String java, Path script) throws IOException, InterruptedException {
+        Path jar = Files.createTempFile("jynk-golden", ".jar");
+        try {
+            String name = script.getFileName().toString().replaceFirst("\\.ynk$", "").replaceAll("\\W", "_");
+            Script parsed = Script.compile(Files.readString(script));
+            ScriptCompiler.writeJar(ScriptCompiler.compile(parsed, "_" + name), "_" + name, jar);
+            return run(false, java, "-jar", jar.toString());
+        } finally {
+            Files.deleteIfExists(jar);
+        }
+    }
+
+    /**
+     * @param interpreted whether the command runs the interpreter, whose first line of output names the script
+     * @return the exit status, output and error output of the command
+     */
+    private static String run(boolean interpreted, String... command) throws IOException, InterruptedException {
+        Path out = Files.createTempFile("jynk-golden", ".out");
+        Path err = Files.createTempFile("jynk-golden", ".err");
+        try {
+            int status = new ProcessBuilder(command)
+                .redirectOutput(out.toFile())
+                .redirectError(err.toFile())
+                .start()
+                .waitFor();
+            String output = Files.readString(out, StandardCharsets.UTF_8);
+            if (interpreted && output.startsWith("parsing source file ")) {
+                output = output.substring(output.indexOf('\n') + 1);
+            }
+            return "exit " + status + "\n--- out\n" + output + "--- err\n" + Files.readString(err, StandardCharsets.UTF_8);
+        } finally {
+            Files.delete(out);
+            Files.delete(err);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Execution of representative programs, each in a fresh interpreter:
+ * an arithmetic loop over globals and one over the local variables of a function, nested loops over integer counters,
+ * string concatenation and comparison, calls of a script function, and calls of a closure that updates a captured and
+ * a global variable. Run with `-jvmArgsAppend -Djynk.infer=false` to compare against operands checked at runtime.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpreterBenchmark {
+    @Param({"arithmetic", "numeric", "counters", "strings", "calls", "returns", "closures"})
+    public String program;
+
+    private Script script;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() {
+        switch (program) {
+            case "arithmetic": script = Script.compile(Sources.ARITHMETIC); break;
+            case "numeric": script = Script.compile(Sources.NUMERIC); break;
+            case "counters": script = Script.compile(Sources.COUNTERS); break;
+            case "strings": script = Script.compile(Sources.STRINGS); break;
+            case "calls": script = Script.compile(Sources.CALLS); break;
+            case "returns": script = Script.compile(Sources.RETURNS); break;
+            case "closures": script = Script.compile(Sources.CLOSURES); break;
+            default: throw new IllegalArgumentException(program);
+        }
+        out = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Interpreter run() {
+        Interpreter interpreter = new Interpreter(out);
+        script.run(interpreter);
+        return interpreter;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.ScriptExecutor;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+/**
+ * Load test for `ScriptExecutor` with scripts that spend most of their time waiting.
+ * Starts all invocations at once and reports throughput and latency percentiles, measured from submission to
+ * completion of each invocation.
+ *
+ * Usage: `java -cp benchmarks.jar com.github.micutio.jynk.benchmarks.LoadTest [invocations] [wait ms] [threads]`
+ * Without a number of platform threads, every invocation runs on its own virtual thread.
+ */
+public class LoadTest {
+    private static final String SOURCE = String.join("\n",
+        "var sum = 0;",
+        "for (var i = 0; i < 100; i = i + 1) {",
+        "    sum = sum + i;",
+        "}",
+        "sleep(WAIT);",
+        "print sum;");
+
+    public static void main(String[] args) {
+        int invocations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int waitMillis = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        Script script = Script.compile(SOURCE.replace("WAIT", Integer.toString(waitMillis)));
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        long[] latencies = new long[invocations];
+
+        ScriptExecutor executor = threads > 0
+            ? new ScriptExecutor(Executors.newFixedThreadPool(threads), null)
+            : new ScriptExecutor();
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[invocations];
+        for (int i = 0; i < invocations; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            futures[i] = executor.submit(script, out)
+                .whenComplete((result, error) -> latencies[index] = System.nanoTime() - submitted);
+        }
+        CompletableFuture.allOf(futures).join();
+        long elapsed = System.nanoTime() - start;
+        executor.close();
+
+        Arrays.sort(latencies);
+        System.out.printf("invocations: %d, wait: %d ms, threads: %s%n",
+            invocations, waitMillis, threads > 0 ? threads + " platform" : "virtual");
+        System.out.printf("throughput:  %.1f invocations/s%n", invocations / (elapsed / 1e9));
+        System.out.printf("latency p50: %.1f ms%n", percentile(latencies, 0.50));
+        System.out.printf("latency p99: %.1f ms%n", percentile(latencies, 0.99));
+        System.out.printf("latency max: %.1f ms%n", latencies[invocations - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import com.github.micutio.jynk.interpreter.YnkMap;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups of all 10,000 keys of a map with number or string keys, in `YnkMap` and in `java.util.HashMap`, and
+ * the lookup-heavy script that a Ynk program would run on its map. String keys are looked up with the same
+ * instances they were added with, as with interned strings. The script always uses number keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapBenchmark {
+    private static final int SIZE = 10_000;
+
+    private static final String SETUP = String.join("\n",
+        "var m = map();",
+        "for (var i = 0; i < " + SIZE + "; i = i + 1) {",
+        "    set(m, i, i);",
+        "}");
+
+    private static final String LOOKUPS = String.join("\n",
+        "var total = 0;",
+        "for (var i = 0; i < " + SIZE + "; i = i + 1) {",
+        "    total = total + get(m, i);",
+        "}");
+
+    @Param({"number", "string"})
+    public String keys;
+
+    private Object[] keyObjects;
+    private YnkMap ynkMap;
+    private HashMap<Object, Object> hashMap;
+    private Interpreter interpreter;
+    private Script lookups;
+
+    @Setup
+    public void setUp() {
+        keyObjects = new Object[SIZE];
+        ynkMap = new YnkMap();
+        hashMap = new HashMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            keyObjects[i] = keys.equals("number") ? (Object) (double) i : ("key" + i).intern();
+            ynkMap.put(keyObjects[i], i);
+            hashMap.put(keyObjects[i], i);
+        }
+
+        interpreter = new Interpreter(new PrintStream(OutputStream.nullOutputStream()));
+        Script.compile(SETUP).run(interpreter);
+        lookups = Script.compile(LOOKUPS);
+    }
+
+    @Benchmark
+    public int ynkMap() {
+        int found = 0;
+        for (Object key: keyObjects) {
+            if (ynkMap.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int hashMap() {
+        int found = 0;
+        for (Object key: keyObjects) {
+            if (hashMap.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Interpreter script() {
+        lookups.run(interpreter);
+        return interpreter;
+    }
+}
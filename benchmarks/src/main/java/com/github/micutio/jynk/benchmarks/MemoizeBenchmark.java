@@ -0,0 +1,63 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Naive recursive Fibonacci numbers, plain and memoized, each in a fresh interpreter so that the memoized version
+ * starts with an empty cache. The plain version grows exponentially with `n`, the memoized one linearly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoizeBenchmark {
+    @Param({"10", "20", "25"})
+    public int n;
+
+    private Script plain;
+    private Script memoized;
+    private PrintStream out;
+
+    @Setup
+    public void setUp() {
+        String fib = String.join("\n",
+            "fun fib(n) {",
+            "    if (n < 2) return n;",
+            "    return fib(n - 1) + fib(n - 2);",
+            "}");
+        plain = Script.compile(fib + "\nprint fib(" + n + ");");
+        memoized = Script.compile(fib + "\nfib = memoize(fib, 100);\nprint fib(" + n + ");");
+        out = new PrintStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Interpreter plain() {
+        Interpreter interpreter = new Interpreter(out);
+        plain.run(interpreter);
+        return interpreter;
+    }
+
+    @Benchmark
+    public Interpreter memoized() {
+        Interpreter interpreter = new Interpreter(out);
+        memoized.run(interpreter);
+        return interpreter;
+    }
+}
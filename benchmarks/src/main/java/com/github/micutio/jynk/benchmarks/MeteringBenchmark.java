@@ -0,0 +1,56 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.ExecutionBudget;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of execution budgets on a loop with a block and a call per iteration.
+ * `none` runs without a budget, `generous` with limits that are never reached.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MeteringBenchmark {
+    private static final String SOURCE = String.join("\n",
+        "fun add(a, b) { return a + b; }",
+        "var acc = 0;",
+        "for (var i = 0; i < 100000; i = i + 1) {",
+        "    acc = add(acc, i);",
+        "}");
+
+    @Param({"none", "generous"})
+    public String budget;
+
+    private Script script;
+    private Interpreter interpreter;
+
+    @Setup
+    public void setUp() {
+        script = Script.compile(SOURCE);
+        interpreter = new Interpreter();
+        if (budget.equals("generous")) {
+            interpreter.setBudget(new ExecutionBudget(Long.MAX_VALUE - 1, 3_600_000, Long.MAX_VALUE - 1));
+        }
+    }
+
+    @Benchmark
+    public void loop() {
+        script.run(interpreter);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.ErrorReporter;
+import com.github.micutio.jynk.ast.NodeCounter;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.lexing.Scanner;
+import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.parsing.Parser;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of `Parser.parse` on pre-scanned tokens, reported in syntax tree nodes per second as `parse:nodes`.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    private List<Token> tokens;
+    private long nodes;
+
+    @Setup
+    public void setUp() {
+        tokens = new Scanner(Sources.mixed(256 * 1024), new ErrorReporter()).scanTokens();
+        nodes = NodeCounter.count(new Parser(tokens, new ErrorReporter()).parse());
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Benchmark
+    public List<Stmt> parse(Counters counters) {
+        List<Stmt> statements = new Parser(tokens, new ErrorReporter()).parse();
+        counters.nodes += nodes;
+        return statements;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Heap that long-lived callbacks keep alive, measured as the growth of the used heap after full collections while the
+ * interpreter that registered them is held. See `Sources.callbacks()` for the program.
+ *
+ * Usage: `java -cp benchmarks.jar com.github.micutio.jynk.benchmarks.RetainedClosures [callbacks]`
+ */
+public class RetainedClosures {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Script script = Script.compile(Sources.callbacks(count));
+
+        long before = usedAfterGc();
+        Interpreter interpreter = new Interpreter(new PrintStream(OutputStream.nullOutputStream()));
+        script.run(interpreter);
+        long retained = usedAfterGc() - before;
+        Reference.reachabilityFence(interpreter);
+
+        System.out.printf("callbacks: %d%n", count);
+        System.out.printf("retained per callback: %.1f bytes%n", (double) retained / count);
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
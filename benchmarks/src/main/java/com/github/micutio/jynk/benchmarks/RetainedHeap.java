@@ -0,0 +1,38 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Heap that compiled scripts keep alive, measured as the growth of the used heap after full collections while a
+ * number of compiled copies of a mixed program are held.
+ *
+ * Usage: `java -cp benchmarks.jar com.github.micutio.jynk.benchmarks.RetainedHeap [kilobytes] [scripts]`
+ */
+public class RetainedHeap {
+    public static void main(String[] args) {
+        int kilobytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String source = Sources.mixed(kilobytes * 1024);
+
+        Script[] scripts = new Script[count];
+        long before = usedAfterGc();
+        for (int i = 0; i < count; i++) {
+            scripts[i] = Script.compile(source);
+        }
+        long retained = usedAfterGc() - before;
+
+        System.out.printf("scripts: %d of %d KB source%n", scripts.length, source.length() / 1024);
+        System.out.printf("retained per script: %.1f KB%n", retained / 1024.0 / count);
+        System.out.printf("retained per source byte: %.1f bytes%n", (double) retained / count / source.length());
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
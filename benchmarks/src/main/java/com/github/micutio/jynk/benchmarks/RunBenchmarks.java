@@ -0,0 +1,29 @@
+package com.github.micutio.jynk.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which adds allocation rates per operation (`gc.alloc.rate.norm`), and
+ * writes all results as JSON, so that runs of different versions can be diffed.
+ *
+ * Usage: `java -cp benchmarks.jar com.github.micutio.jynk.benchmarks.RunBenchmarks [result file] [include regex]`
+ */
+public class RunBenchmarks {
+    public static void main(String[] args) throws RunnerException {
+        String result = args.length > 0 ? args[0] : "jmh-result.json";
+        String include = args.length > 1 ? args[1] : "com.github.micutio.jynk.benchmarks.*";
+
+        Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result)
+            .build();
+        new Runner(options).run();
+    }
+}
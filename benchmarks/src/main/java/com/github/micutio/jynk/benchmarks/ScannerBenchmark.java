@@ -0,0 +1,55 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.ErrorReporter;
+import com.github.micutio.jynk.lexing.Scanner;
+import com.github.micutio.jynk.lexing.Token;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of `Scanner.scanTokens`, reported in MB of source code per second as `scan:megabytes`.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScannerBenchmark {
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = Sources.mixed(256 * 1024);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Benchmark
+    public List<Token> scan(Counters counters) {
+        List<Token> tokens = new Scanner(source, new ErrorReporter()).scanTokens();
+        counters.megabytes += source.length() / 1e6;
+        return tokens;
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.micutio.jynk.benchmarks;
+
+/**
+ * Ynk programs shared by the benchmarks.
+ */
+final class Sources {
+    private Sources() {}
+
+    /**
+     * A mix of declarations, functions, loops, conditions, strings and calls, repeated until it reaches at least the
+     * given number of characters. Each repetition declares its own names.
+     */
+    static String mixed(int minLength) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; source.length() < minLength; i++) {
+            source.append("// repetition ").append(i).append('\n')
+                .append("var total").append(i).append(" = 0;\n")
+                .append("var name").append(i).append(" = \"ynk\" + \"-\" + \"bench\";\n")
+                .append("fun step").append(i).append("(a, b) {\n")
+                .append("    if (a > b and !(a == 0)) {\n")
+                .append("        total").append(i).append(" = total").append(i).append(" + a * 2.5 - b / 4;\n")
+                .append("    } else {\n")
+                .append("        print name").append(i).append(";\n")
+                .append("    }\n")
+                .append("}\n")
+                .append("for (var i = 0; i < 10; i = i + 1) {\n")
+                .append("    step").append(i).append("(i, 5);\n")
+                .append("}\n");
+        }
+        return source.toString();
+    }
+
+    static final String ARITHMETIC = String.join("\n",
+        "var sum = 0;",
+        "for (var i = 0; i < 100000; i = i + 1) {",
+        "    sum = sum + i * 2 - i / 3;",
+        "}");
+
+    static final String NUMERIC = String.join("\n",
+        "fun series(n) {",
+        "    var sum = 0;",
+        "    var sign = 1;",
+        "    for (var i = 1; i <= n; i = i + 1) {",
+        "        sum = sum + sign / (i * 2 - 1);",
+        "        sign = -sign;",
+        "    }",
+        "    return sum * 4;",
+        "}",
+        "var pi = series(100000);");
+
+    static final String COUNTERS = String.join("\n",
+        "var hits = 0;",
+        "for (var i = 0; i < 300; i = i + 1) {",
+        "    for (var j = 0; j < 300; j = j + 1) {",
+        "        if (i * 300 + j > 45000) hits = hits + 1;",
+        "    }",
+        "}");
+
+    static final String STRINGS = String.join("\n",
+        "var s = \"\";",
+        "var matches = 0;",
+        "for (var i = 0; i < 20000; i = i + 1) {",
+        "    s = s + \"x\";",
+        "    if (s == \"xxxxxxxxxx\") {",
+        "        s = \"\";",
+        "        matches = matches + 1;",
+        "    }",
+        "}");
+
+    static final String CALLS = String.join("\n",
+        "var counter = 0;",
+        "fun increment(by) {",
+        "    counter = counter + by;",
+        "}",
+        "for (var i = 0; i < 50000; i = i + 1) {",
+        "    increment(1);",
+        "}");
+
+    static final String RETURNS = String.join("\n",
+        "fun fib(n) {",
+        "    if (n < 2) return n;",
+        "    return fib(n - 1) + fib(n - 2);",
+        "}",
+        "fun firstMultiple(of, limit) {",
+        "    for (var i = 1; i < limit; i = i + 1) {",
+        "        if (i * of > 50) return i;",
+        "    }",
+        "    return nil;",
+        "}",
+        "var sum = fib(18);",
+        "for (var i = 1; i < 5000; i = i + 1) {",
+        "    sum = sum + firstMultiple(7, 100);",
+        "}");
+
+    static final String CLOSURES = String.join("\n",
+        "var total = 0;",
+        "var adder;",
+        "fun prepare(step) {",
+        "    var calls = 0;",
+        "    fun add(n) {",
+        "        calls = calls + 1;",
+        "        total = total + n * step;",
+        "    }",
+        "    adder = add;",
+        "}",
+        "prepare(2);",
+        "for (var i = 0; i < 50000; i = i + 1) {",
+        "    if (i > 0) {",
+        "        adder(i);",
+        "    }",
+        "}");
+
+    /**
+     * A program that registers the given number of callbacks. Each one counts its own calls but is declared next to
+     * scratch data that it never uses.
+     */
+    static String callbacks(int count) {
+        return String.join("\n",
+            "var callbacks = map();",
+            "fun register(id) {",
+            "    var scratch = array(512);",
+            "    var names = map();",
+            "    set(names, id, \"callback\");",
+            "    var calls = 0;",
+            "    fun onEvent() {",
+            "        calls = calls + 1;",
+            "    }",
+            "    set(callbacks, id, onEvent);",
+            "}",
+            "for (var i = 0; i < " + count + "; i = i + 1) {",
+            "    register(i);",
+            "}");
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.compiler.ScriptCompiler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wall time from launching a JVM until a corpus script has finished, for the interpreter and for the script compiled
+ * by `jynkc`. Every run is a new process, so this covers loading classes, and scanning and parsing the script for the
+ * interpreter, which `CorpusRunner` leaves out. Prints the mean and fastest time of each script and engine.
+ *
+ * Usage: `java -cp benchmarks.jar com.github.micutio.jynk.benchmarks.StartupTime [runs]`
+ */
+public class StartupTime {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String classPath = System.getProperty("java.class.path");
+
+        Path directory = Files.createTempDirectory("jynk-startup");
+        List<Path> files = new ArrayList<>();
+        try {
+            for (String name: CorpusRunner.SCRIPTS) {
+                String source = CorpusRunner.load(name);
+                Path script = directory.resolve(name + ".ynk");
+                Path jar = directory.resolve(name + ".jar");
+                files.add(script);
+                files.add(jar);
+                Files.writeString(script, source);
+                ScriptCompiler.writeJar(ScriptCompiler.compile(Script.compile(source), name), name, jar);
+
+                report(name, "interpreter",
+                    time(runs, java, "-cp", classPath, "com.github.micutio.jynk.Ynk", script.toString()));
+                report(name, "compiled", time(runs, java, "-jar", jar.toString()));
+            }
+        } finally {
+            for (Path file: files) {
+                Files.deleteIfExists(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * @return the wall time of each run in nanoseconds
+     */
+    private static long[] time(int runs, String... command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT);
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            int status = builder.start().waitFor();
+            times[i] = System.nanoTime() - start;
+            if (status != 0) {
+                throw new IllegalStateException(String.join(" ", command) + " exited with status " + status);
+            }
+        }
+        return times;
+    }
+
+    private static void report(String script, String engine, long[] times) {
+        long total = 0;
+        long fastest = Long.MAX_VALUE;
+        for (long time: times) {
+            total += time;
+            fastest = Math.min(fastest, time);
+        }
+        System.out.printf(Locale.ROOT, "%-8s %-12s mean %7.1f ms, fastest %7.1f ms%n",
+            script, engine, total / 1e6 / times.length, fastest / 1e6);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.micutio.jynk.benchmarks;
+
+import com.github.micutio.jynk.Script;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dispatch on string commands, half of them literals and half computed by concatenation.
+ * Interning is decided at startup, so compare against a run with `-jvmArgsAppend -Djynk.intern=false`.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringBenchmark {
+    private static final String SOURCE = String.join("\n",
+        "var acc = 0;",
+        "var prefix = \"mu\";",
+        "var odd = false;",
+        "for (var i = 0; i < 20000; i = i + 1) {",
+        "    var cmd = \"add\";",
+        "    if (odd) cmd = prefix + \"lt\";",
+        "    odd = !odd;",
+        "    if (cmd == \"sub\") acc = acc - 1;",
+        "    else if (cmd == \"div\") acc = acc / 2;",
+        "    else if (cmd == \"mod\") acc = acc - 2;",
+        "    else if (cmd == \"mul\") acc = acc * 1;",
+        "    else if (cmd == \"mult\") acc = acc + 2;",
+        "    else if (cmd == \"add\") acc = acc + 1;",
+        "}",
+        "print acc;");
+
+    private Script script;
+    private Interpreter interpreter;
+
+    @Setup
+    public void setUp() {
+        script = Script.compile(SOURCE);
+        interpreter = new Interpreter(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Benchmark
+    public void dispatch() {
+        script.run(interpreter);
+    }
+}
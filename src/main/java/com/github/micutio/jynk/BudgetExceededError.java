@@ -0,0 +1,10 @@
+package com.github.micutio.jynk;
+
+/**
+ * Raised when a script uses up the execution budget that its host gave the interpreter.
+ */
+public class BudgetExceededError extends RuntimeError {
+    public BudgetExceededError(int line, String message) {
+        super(line, message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.micutio.jynk;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * Output for `print` statements that is only flushed when its buffer is full or on request, for scripts that print a
+ * lot of lines into a pipeline.
+ * `print` only calls `println(String)`, so that one encodes the string in a single step and writes it straight into
+ * the buffer, bypassing the character buffers of `PrintStream`. All other methods work as usual.
+ */
+final class BufferedSink extends PrintStream {
+    private final Charset charset;
+    private final byte[] lineSeparator;
+
+    BufferedSink(OutputStream target, int bufferSize, Charset charset) {
+        super(new BufferedOutputStream(target, bufferSize), false, charset);
+        this.charset = charset;
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+    }
+
+    @Override
+    public void println(String line) {
+        byte[] bytes = String.valueOf(line).getBytes(charset);
+        // `PrintStream` locks its subclasses on the monitor, so lines don't mix with other output
+        synchronized (this) {
+            try {
+                out.write(bytes);
+                out.write(lineSeparator);
+            } catch (IOException e) {
+                setError();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.micutio.jynk;
+
+import com.github.micutio.jynk.interpreter.Interpreter;
+
+/**
+ * A script compiled ahead of time to a Java class by `jynkc`, see `Jynkc`. Like a `Script` it can be run any number
+ * of times, as long as every run uses its own `Interpreter`, which provides the globals, natives and output.
+ */
+public interface CompiledScript {
+    /**
+     * Run the script in the given interpreter, which keeps all global definitions of the script afterwards.
+     * @throws RuntimeError if the script fails at runtime
+     */
+    void run(Interpreter interpreter);
+
+    /**
+     * Run the script as the main program, reporting runtime errors and their exit code like `Ynk` does.
+     */
+    static void main(CompiledScript script) {
+        try {
+            script.run(new Interpreter());
+        } catch (RuntimeError error) {
+            System.out.flush();
+            System.err.println(error.getMessage() + "\n[line " + error.line() + "]");
+            System.exit(70);
+        }
+    }
+}
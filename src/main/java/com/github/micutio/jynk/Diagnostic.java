@@ -0,0 +1,21 @@
+package com.github.micutio.jynk;
+
+/**
+ * A single error found while compiling a script.
+ */
+public class Diagnostic {
+    public final int line;
+    public final String where;
+    public final String message;
+
+    public Diagnostic(int line, String where, String message) {
+        this.line = line;
+        this.where = where;
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "[line " + line + "] Error" + where + ": " + message;
+    }
+}
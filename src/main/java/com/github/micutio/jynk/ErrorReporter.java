@@ -0,0 +1,34 @@
+package com.github.micutio.jynk;
+
+import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.lexing.TokenType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the errors that scanner and parser find in a single compilation.
+ */
+public class ErrorReporter {
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+    public void error(int line, String message) {
+        diagnostics.add(new Diagnostic(line, "", message));
+    }
+
+    public void error(Token token, String message) {
+        if (token.type == TokenType.EOF) {
+            diagnostics.add(new Diagnostic(token.line, " at end", message));
+        } else {
+            diagnostics.add(new Diagnostic(token.line, " at '" + token.lexeme + "'", message));
+        }
+    }
+
+    public boolean hadError() {
+        return !diagnostics.isEmpty();
+    }
+
+    public List<Diagnostic> diagnostics() {
+        return Collections.unmodifiableList(new ArrayList<>(diagnostics));
+    }
+}
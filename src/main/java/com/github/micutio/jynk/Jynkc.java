@@ -0,0 +1,90 @@
+package com.github.micutio.jynk;
+
+import com.github.micutio.jynk.compiler.ScriptCompiler;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import javax.lang.model.SourceVersion;
+
+/**
+ * Ahead-of-time compiler for `Ynk` scripts: compiles a script into an executable jar, which runs the script without
+ * scanning, parsing or interpreting it, see `ScriptCompiler`.
+ * Uses UNIX sysexists.h exit codes, like `Ynk`: 70 if the compiler fails on a valid script.
+ */
+public class Jynkc {
+    public static void main(String[] args) {
+        Path jar = null;
+        int next = 0;
+        while (next < args.length && args[next].startsWith("-")) {
+            String option = args[next++];
+            if (option.equals("-o") && next < args.length) {
+                jar = Paths.get(args[next++]);
+            } else {
+                usage();
+            }
+        }
+        if (next != args.length - 1) {
+            usage();
+        }
+
+        Path path = Paths.get(args[next]);
+        String className = className(path);
+        if (jar == null) {
+            jar = path.resolveSibling(className + ".jar");
+        }
+
+        Script script;
+        try {
+            script = Script.compile(new String(Files.readAllBytes(path), Charset.defaultCharset()));
+        } catch (IOException e) {
+            System.err.println("Cannot read script: " + e.getMessage());
+            System.exit(66);
+            return;
+        }
+        if (script.hasErrors()) {
+            for (Diagnostic diagnostic: script.diagnostics()) {
+                System.err.println(diagnostic);
+            }
+            System.exit(65);
+        }
+
+        try {
+            Map<String, byte[]> classes = ScriptCompiler.compile(script, className);
+            ScriptCompiler.writeJar(classes, className, jar);
+        } catch (IOException e) {
+            System.err.println("Cannot write jar: " + e.getMessage());
+            System.exit(74);
+        } catch (IllegalStateException e) {
+            // a valid script that the compiler cannot handle, e.g. a function whose body is too large for a method
+            System.err.println("Cannot compile script: " + e.getMessage());
+            System.exit(70);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: jynkc [-o <jar>] <script>");
+        System.out.println("  -o <jar>  write the executable jar to the given file instead of next to the script");
+        System.out.println("Run the result with `java -jar <jar>`.");
+        System.exit(64);
+    }
+
+    /**
+     * @return the name of the script file without extension, made into a valid Java class name
+     */
+    private static String className(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        StringBuilder className = new StringBuilder();
+        for (char c: name.toCharArray()) {
+            className.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        // covers names that start with a digit and keywords
+        return SourceVersion.isName(className) ? className.toString() : "_" + className;
+    }
+}
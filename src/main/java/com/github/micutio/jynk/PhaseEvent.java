@@ -0,0 +1,65 @@
+package com.github.micutio.jynk;
+
+import com.github.micutio.jynk.ast.NodeCounter;
+import com.github.micutio.jynk.ast.Stmt;
+import java.util.List;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one phase of running a script: scanning, parsing, optimizing, resolving or executing.
+ * Also feeds the phase summary of `RuntimeStats`. Counting the nodes of the syntax tree walks the whole tree, so it
+ * only happens if the event is recorded or statistics are enabled.
+ */
+@Name("com.github.micutio.jynk.Phase")
+@Label("Ynk Phase")
+@Category("Ynk")
+@Description("Scanning, parsing, optimizing or executing a script")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("AST Nodes")
+    long nodes;
+
+    // transient fields are not recorded
+    private transient long start;
+
+    static PhaseEvent begin(String phase) {
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase;
+        if (RuntimeStats.ENABLED) {
+            event.start = System.nanoTime();
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param tokens number of tokens the phase worked on
+     * @param statements syntax tree the phase worked on, or `null` if there is none yet
+     */
+    void end(int tokens, List<Stmt> statements) {
+        end();
+        long nanos = RuntimeStats.ENABLED ? System.nanoTime() - start : 0;
+        boolean record = shouldCommit();
+        if (!record && !RuntimeStats.ENABLED) {
+            return;
+        }
+
+        this.tokens = tokens;
+        this.nodes = statements == null ? 0 : NodeCounter.count(statements);
+        if (record) {
+            commit();
+        }
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.phase(phase, nanos, tokens, nodes);
+        }
+    }
+}
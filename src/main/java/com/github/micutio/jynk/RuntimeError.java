@@ -2,11 +2,30 @@ package com.github.micutio.jynk;
 
 import com.github.micutio.jynk.lexing.Token;
 
+/**
+ * An error in a script, reported with the source line it occurred in.
+ * The Java stack trace of the interpreter says nothing about the script, so it isn't recorded, which makes raising
+ * an error about as cheap as allocating any other object.
+ */
 public class RuntimeError extends RuntimeException {
-    final Token token;
+    private final int line;
 
     public RuntimeError(Token token, String message) {
-        super(message);
-        this.token = token;
+        this(token == null ? 0 : token.line, message);
+    }
+
+    /**
+     * @param line the source line the error occurred in, or 0 if it isn't tied to any line
+     */
+    public RuntimeError(int line, String message) {
+        super(message, null, false, false);
+        this.line = line;
+    }
+
+    /**
+     * @return the source line the error occurred in, or 0 if it isn't tied to any line
+     */
+    public int line() {
+        return line;
     }
 }
@@ -0,0 +1,116 @@
+package com.github.micutio.jynk;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what the front end and the interpreter do, for finding out where the time of a script goes.
+ * Collecting them is switched on by the system property `jynk.stats` and must be decided before the first script
+ * runs. Since `ENABLED` is a constant once this class is initialized, the JIT removes all counting code when it is
+ * off. The counters are shared by all interpreters and tasks of the process.
+ */
+public final class RuntimeStats {
+    public static final boolean ENABLED = Boolean.getBoolean("jynk.stats");
+
+    // lookups that walk more scopes than this end up in the last bucket
+    private static final int MAX_DEPTH = 16;
+
+    private static final LongAdder environments = new LongAdder();
+    private static final LongAdder calls = new LongAdder();
+    private static final LongAdder boxedDoubles = new LongAdder();
+    private static final LongAdder boxedLongs = new LongAdder();
+    private static final LongAdder binaryNodes = new LongAdder();
+    private static final LongAdder specializedNodes = new LongAdder();
+    private static final LongAdder[] lookupDepths = new LongAdder[MAX_DEPTH + 1];
+    private static final LongAdder undefinedLookups = new LongAdder();
+    private static final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    static {
+        for (int i = 0; i < lookupDepths.length; i++) {
+            lookupDepths[i] = new LongAdder();
+        }
+    }
+
+    private RuntimeStats() {}
+
+    private static final class Phase {
+        long runs;
+        long nanos;
+        long tokens;
+        long nodes;
+    }
+
+    public static void environment() {
+        environments.increment();
+    }
+
+    public static void call() {
+        calls.increment();
+    }
+
+    public static void boxedDouble() {
+        boxedDoubles.increment();
+    }
+
+    /**
+     * Count a boxed integer that did not come from the cache of small integers.
+     */
+    public static void boxedLong() {
+        boxedLongs.increment();
+    }
+
+    /**
+     * @param depth number of enclosing scopes walked until the variable was found, or -1 if it is not defined
+     */
+    public static void lookup(int depth) {
+        if (depth < 0) {
+            undefinedLookups.increment();
+            return;
+        }
+        lookupDepths[Math.min(depth, MAX_DEPTH)].increment();
+    }
+
+    /**
+     * @param specialized how many of the binary nodes of a script have operands of a proven type
+     */
+    static void binaryNodes(long count, long specialized) {
+        binaryNodes.add(count);
+        specializedNodes.add(specialized);
+    }
+
+    static synchronized void phase(String name, long nanos, int tokens, long nodes) {
+        Phase phase = phases.computeIfAbsent(name, key -> new Phase());
+        phase.runs++;
+        phase.nanos += nanos;
+        phase.tokens += tokens;
+        phase.nodes += nodes;
+    }
+
+    public static synchronized void report(PrintStream out) {
+        out.println("phase       runs         time    tokens     nodes");
+        for (Map.Entry<String, Phase> entry: phases.entrySet()) {
+            Phase phase = entry.getValue();
+            out.printf("%-8s %7d %9.2f ms %9d %9d%n",
+                entry.getKey(), phase.runs, phase.nanos / 1e6, phase.tokens, phase.nodes);
+        }
+
+        out.printf("environments allocated: %d%n", environments.sum());
+        out.printf("calls:                  %d%n", calls.sum());
+        out.printf("boxed doubles:          %d%n", boxedDoubles.sum());
+        out.printf("boxed integers:         %d%n", boxedLongs.sum());
+        long binaries = binaryNodes.sum();
+        long specialized = specializedNodes.sum();
+        out.printf("specialized binaries:   %d of %d (%.1f%%)%n",
+            specialized, binaries, binaries == 0 ? 0.0 : 100.0 * specialized / binaries);
+        out.println("lookup depth histogram:");
+        for (int depth = 0; depth < lookupDepths.length; depth++) {
+            long count = lookupDepths[depth].sum();
+            if (count > 0) {
+                out.printf("  %s%2d: %d%n", depth == MAX_DEPTH ? ">=" : "  ", depth, count);
+            }
+        }
+        out.printf("undefined lookups:      %d%n", undefinedLookups.sum());
+    }
+}
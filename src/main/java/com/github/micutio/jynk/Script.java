@@ -0,0 +1,131 @@
+package com.github.micutio.jynk;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.NodeCounter;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.ast.ValueType;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import com.github.micutio.jynk.lexing.Scanner;
+import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.optimizing.LoopOptimizer;
+import com.github.micutio.jynk.optimizing.TypeInference;
+import com.github.micutio.jynk.parsing.Parser;
+import com.github.micutio.jynk.parsing.Resolver;
+import java.util.Collections;
+import java.util.List;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * A compiled script. Scripts are immutable, so a script compiled once can be run any number of times, from any
+ * number of threads at once, as long as every run uses its own `Interpreter`.
+ */
+public class Script {
+    // type inference can be switched off with `-Djynk.infer=false`, to measure its gain
+    private static final boolean INFER_TYPES = !"false".equals(System.getProperty("jynk.infer"));
+
+    private final List<Stmt> statements;
+    private final List<Diagnostic> diagnostics;
+
+    private Script(List<Stmt> statements, List<Diagnostic> diagnostics) {
+        this.statements = statements;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Scan, parse, resolve and optimize the given source code, and infer the types of its operands.
+     * Syntax errors don't raise an exception but are returned as the diagnostics of the script.
+     * @param sourceCode Ynk source code
+     * @return the compiled script
+     */
+    public static Script compile(String sourceCode) {
+        ErrorReporter reporter = new ErrorReporter();
+
+        PhaseEvent scan = beginPhase("scan");
+        List<Token> tokens = new Scanner(sourceCode, reporter).scanTokens();
+        endPhase(scan, tokens.size(), null);
+
+        PhaseEvent parse = beginPhase("parse");
+        List<Stmt> statements = new Parser(tokens, reporter).parse();
+        endPhase(parse, tokens.size(), statements);
+
+        if (reporter.hadError()) {
+            return new Script(Collections.emptyList(), reporter.diagnostics());
+        }
+
+        PhaseEvent resolve = beginPhase("resolve");
+        statements = new Resolver().resolve(statements);
+        endPhase(resolve, tokens.size(), statements);
+
+        // runs on the resolved tree, which tells the local variables that no other code can assign apart
+        PhaseEvent optimize = beginPhase("optimize");
+        statements = new LoopOptimizer().optimize(statements);
+        endPhase(optimize, tokens.size(), statements);
+
+        if (INFER_TYPES) {
+            PhaseEvent infer = beginPhase("infer");
+            statements = new TypeInference().infer(statements);
+            endPhase(infer, tokens.size(), statements);
+        }
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.binaryNodes(NodeCounter.count(statements, node -> node instanceof Expr.Binary),
+                NodeCounter.count(statements, node -> node instanceof Expr.Binary
+                    && ((Expr.Binary) node).operands != ValueType.ANY));
+        }
+
+        return new Script(Collections.unmodifiableList(statements), Collections.emptyList());
+    }
+
+    /**
+     * Loading an event class starts up parts of Flight Recorder, which would slow down short scripts. So phase events
+     * are only created while a recording is possible or statistics are enabled.
+     */
+    private static PhaseEvent beginPhase(String phase) {
+        if (!RuntimeStats.ENABLED && !FlightRecorder.isInitialized()) {
+            return null;
+        }
+        return PhaseEvent.begin(phase);
+    }
+
+    private static void endPhase(PhaseEvent event, int tokens, List<Stmt> statements) {
+        if (event != null) {
+            event.end(tokens, statements);
+        }
+    }
+
+    public boolean hasErrors() {
+        return !diagnostics.isEmpty();
+    }
+
+    public List<Diagnostic> diagnostics() {
+        return diagnostics;
+    }
+
+    public List<Stmt> statements() {
+        return statements;
+    }
+
+    /**
+     * Run the script in a fresh interpreter.
+     * @throws RuntimeError if the script fails at runtime
+     */
+    public void run() {
+        run(new Interpreter());
+    }
+
+    /**
+     * Run the script in the given interpreter, which keeps all global definitions of the script afterwards.
+     * @param interpreter execution context of this run, must not be used by another thread at the same time
+     * @throws RuntimeError if the script fails at runtime
+     */
+    public void run(Interpreter interpreter) {
+        if (hasErrors()) {
+            throw new IllegalStateException("Cannot run a script with compile errors.");
+        }
+        PhaseEvent execute = beginPhase("execute");
+        try {
+            interpreter.interpret(statements);
+        } finally {
+            endPhase(execute, 0, null);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.micutio.jynk;
+
+import com.github.micutio.jynk.interpreter.ExecutionBudget;
+import com.github.micutio.jynk.interpreter.Interpreter;
+import java.io.PrintStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs script invocations concurrently, by default each one on its own virtual thread.
+ * Every invocation gets a fresh `Interpreter`, so invocations share nothing but the compiled script. Scripts that
+ * mostly wait, for example in `sleep`, don't tie up a platform thread while they do.
+ */
+public class ScriptExecutor implements AutoCloseable {
+    private final ExecutorService executor;
+    private final ExecutionBudget budget;
+
+    public ScriptExecutor() {
+        this(Executors.newVirtualThreadPerTaskExecutor(), null);
+    }
+
+    /**
+     * @param executor executor that runs the invocations, it is shut down when this is closed
+     * @param budget execution budget of every single invocation, or `null` for none
+     */
+    public ScriptExecutor(ExecutorService executor, ExecutionBudget budget) {
+        this.executor = executor;
+        this.budget = budget;
+    }
+
+    /**
+     * Run the script asynchronously in a fresh interpreter.
+     * @param script the script to run
+     * @param out stream that `print` statements of this invocation write to
+     * @return future that completes when the script has finished, or exceptionally with its `RuntimeError`
+     */
+    public CompletableFuture<Void> submit(Script script, PrintStream out) {
+        if (script.hasErrors()) {
+            throw new IllegalStateException("Cannot run a script with compile errors.");
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            Interpreter interpreter = new Interpreter(out);
+            interpreter.setBudget(budget);
+            script.run(interpreter);
+        }, executor);
+    }
+
+    /**
+     * Wait for all submitted invocations to finish and release the executor.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -1,47 +1,225 @@
 package com.github.micutio.jynk;
 
-import com.github.micutio.jynk.ast.AstPrinter;
-import com.github.micutio.jynk.ast.Expr;
-import com.github.micutio.jynk.ast.Stmt;
 import com.github.micutio.jynk.interpreter.Interpreter;
-import com.github.micutio.jynk.lexing.Scanner;
-import com.github.micutio.jynk.lexing.Token;
-import com.github.micutio.jynk.lexing.TokenType;
-import com.github.micutio.jynk.parsing.Parser;
+import com.github.micutio.jynk.interpreter.LineReader;
+import com.github.micutio.jynk.interpreter.Numbers;
+import com.github.micutio.jynk.interpreter.Profiler;
+import com.github.micutio.jynk.interpreter.Snapshot;
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.FileInputStream;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
  * Java interpreter for the programming language `Ynk`.
  * Uses UNIX sysexists.h exit codes.
+ * This is the command line interface. To embed Ynk into other programs, use `Script` instead.
  * @author micutio
  */
 public class Ynk {
-    private static final Interpreter interpreter = new Interpreter();
+    // buffer sizes for `--lines`, large enough that reads and writes are rare compared to running the script
+    private static final int INPUT_BUFFER = 1 << 20;
+    private static final int OUTPUT_BUFFER = 1 << 16;
+
+    private static Interpreter interpreter;
+    private static PrintStream out = System.out;
     private static boolean hadError;
     private static boolean hadRuntimeError;
+    private static Path profile;
+    private static Profiler profiler;
 
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jynk [script]");
-            System.exit(64);
-        } else if (args.length == 1) {
-            System.out.println("parsing source file " + args[0]);
-            runFile(args[0]);
+        Path image = null;
+        Path snapshot = null;
+        boolean stats = false;
+        boolean lines = false;
+        String begin = null;
+        String end = null;
+
+        int next = 0;
+        while (next < args.length && args[next].startsWith("--")) {
+            String option = args[next++];
+            if (option.equals("--image") && next < args.length) {
+                image = Paths.get(args[next++]);
+            } else if (option.equals("--snapshot") && next < args.length) {
+                snapshot = Paths.get(args[next++]);
+            } else if (option.equals("--stats")) {
+                stats = true;
+            } else if (option.equals("--profile") && next < args.length) {
+                profile = Paths.get(args[next++]);
+            } else if (option.equals("--lines")) {
+                lines = true;
+            } else if (option.equals("--begin") && next < args.length) {
+                begin = args[next++];
+            } else if (option.equals("--end") && next < args.length) {
+                end = args[next++];
+            } else {
+                usage();
+            }
+        }
+
+        boolean needsScript = snapshot != null || profile != null || stats || lines;
+        int maxArguments = lines ? 2 : 1;
+        if (args.length - next > maxArguments || (needsScript && next == args.length)
+            || (!lines && (begin != null || end != null))) {
+            usage();
+        }
+
+        if (stats) {
+            // read once when the first script runs, so it has to be set before that
+            System.setProperty("jynk.stats", "true");
+        }
+
+        if (lines) {
+            // the output usually goes down a pipeline, so it is flushed when the buffer is full, not after every line
+            out = new BufferedSink(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER, System.out.charset());
+        }
+        interpreter = new Interpreter(out);
+        if (image != null) {
+            restore(image);
+        }
+
+        if (profile != null) {
+            // sample often enough to get a useful profile from short scripts
+            profiler = new Profiler(1000);
+            profiler.attach(interpreter);
+        }
+
+        if (lines) {
+            runLines(args[next], next + 1 < args.length ? args[next + 1] : null, begin, end);
+            if (snapshot != null) {
+                snapshot(snapshot);
+            }
+        } else if (next < args.length) {
+            System.out.println("parsing source file " + args[next]);
+            runFile(args[next]);
+            if (snapshot != null) {
+                snapshot(snapshot);
+            }
         } else {
             System.out.println("launching ynk prompt...");
             runPrompt();
         }
     }
 
+    private static void usage() {
+        System.out.println("Usage: jynk [--image <file>] [--snapshot <file>] [--profile <file>] [--stats] [script]");
+        System.out.println("       jynk --lines [--begin <code>] [--end <code>] [options] <script> [input]");
+        System.out.println("  --image <file>     restore the global variables of a snapshot before running");
+        System.out.println("  --snapshot <file>  write the global variables to a snapshot after running the script");
+        System.out.println("  --profile <file>   write a sampling profile of the script as collapsed stacks");
+        System.out.println("  --stats            print phase times and runtime counters after running the script");
+        System.out.println("  --lines            run the script once per line of the input file or stdin, which it");
+        System.out.println("                     reads as `record`, numbered from 1 as `recordNumber`");
+        System.out.println("  --begin <code>     with --lines, run the given code before the first line");
+        System.out.println("  --end <code>       with --lines, run the given code after the last line");
+        System.exit(64);
+    }
+
+    private static void restore(Path image) {
+        try {
+            Snapshot.restore(interpreter, image);
+        } catch (IOException e) {
+            System.err.println("Cannot restore snapshot: " + e.getMessage());
+            System.exit(74);
+        }
+    }
+
+    private static void snapshot(Path snapshot) {
+        try {
+            List<String> skipped = Snapshot.write(interpreter, snapshot);
+            if (!skipped.isEmpty()) {
+                System.err.println("Snapshot leaves out values it cannot store: " + String.join(", ", skipped));
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot write snapshot: " + e.getMessage());
+            System.exit(74);
+        }
+    }
+
+    private static void writeProfile() {
+        try (Writer out = Files.newBufferedWriter(profile)) {
+            profiler.writeCollapsed(out);
+        } catch (IOException e) {
+            System.err.println("Cannot write profile: " + e.getMessage());
+            System.exit(74);
+        }
+    }
+
     private static void runFile(String path) throws IOException {
         byte[] bytes = Files.readAllBytes(Paths.get(path));
+        if (profiler != null) {
+            profiler.start();
+        }
         run(new String(bytes, Charset.defaultCharset()));
+        finish();
+    }
+
+    /**
+     * Compile the script once and run it for every line of the input, like awk.
+     * @param input path of the input file, or `null` to read stdin
+     * @param begin code to run before the first line, or `null`
+     * @param end code to run after the last line, or `null`
+     */
+    private static void runLines(String path, String input, String begin, String end) throws IOException {
+        Script script = compile(new String(Files.readAllBytes(Paths.get(path)), Charset.defaultCharset()));
+        Script beginScript = begin == null ? null : compile(begin);
+        Script endScript = end == null ? null : compile(end);
+        if (hadError) {
+            System.exit(65);
+        }
+
+        if (profiler != null) {
+            profiler.start();
+        }
+        // reading the channel of stdin directly skips the buffer of `System.in`
+        ReadableByteChannel channel = input == null
+            ? new FileInputStream(FileDescriptor.in).getChannel()
+            : FileChannel.open(Paths.get(input), StandardOpenOption.READ);
+        LineReader reader = new LineReader(channel, INPUT_BUFFER);
+        try {
+            if (beginScript != null) {
+                beginScript.run(interpreter);
+            }
+            long number = 0;
+            while (reader.next()) {
+                interpreter.define("record", reader.line());
+                interpreter.define("recordNumber", Numbers.of(++number));
+                script.run(interpreter);
+            }
+            if (endScript != null) {
+                endScript.run(interpreter);
+            }
+        } catch (RuntimeError error) {
+            out.flush();
+            runtimeError(error);
+        } finally {
+            reader.close();
+        }
+        out.flush();
+        finish();
+    }
+
+    private static void finish() {
+        if (profiler != null) {
+            profiler.stop();
+            writeProfile();
+        }
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.report(System.err);
+        }
 
         // Indicate an error n the exit code.
         if (hadError)
@@ -65,38 +243,33 @@ public class Ynk {
     }
 
     private static void run(String sourceCode) {
-        Scanner scanner = new Scanner(sourceCode);
-        List<Token> tokens = scanner.scanTokens();
-        Parser parser = new Parser(tokens);
-        List<Stmt> statements = parser.parse();
+        Script script = compile(sourceCode);
 
         // stop if there was a syntax error
-        if (hadError)
+        if (script.hasErrors()) {
             return;
+        }
 
-        // System.out.println(new AstPrinter().print(expression));
-        interpreter.interpret(statements);
-    }
-
-    public static void error(int line, String message) {
-        report(line, "", message);
+        try {
+            script.run(interpreter);
+        } catch (RuntimeError error) {
+            runtimeError(error);
+        }
     }
 
-    public static void error(Token token, String message) {
-        if (token.type == TokenType.EOF) {
-            report(token.line, " at end", message);
-        } else {
-            report(token.line, " at '" + token.lexeme + "'", message);
+    private static Script compile(String sourceCode) {
+        Script script = Script.compile(sourceCode);
+        if (script.hasErrors()) {
+            for (Diagnostic diagnostic: script.diagnostics()) {
+                System.err.println(diagnostic);
+            }
+            hadError = true;
         }
+        return script;
     }
 
-    public static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() + "\n[line " + error.token.line + "]");
+    private static void runtimeError(RuntimeError error) {
+        System.err.println(error.getMessage() + "\n[line " + error.line() + "]");
         hadRuntimeError = true;
     }
-
-    private static void report(int line, String where, String message) {
-        System.err.println("[line " + line + "] Error" + where + ": " + message);
-        hadError = true;
-    }
 }
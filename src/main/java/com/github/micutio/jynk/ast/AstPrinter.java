@@ -1,16 +1,20 @@
 package com.github.micutio.jynk.ast;
 
-import com.github.micutio.jynk.lexing.Token;
 import com.github.micutio.jynk.lexing.TokenType;
+import java.util.List;
 
 /**
  * Create an unambiguous, if ugly, representation of AST nodes.
  */
-public class AstPrinter implements Expr.Visitor<String> {
+public class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<String> {
     public String print(Expr expr) {
         return expr.accept(this);
     }
 
+    public String print(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
     private String parenthesize(String name, Expr... exprs) {
         StringBuilder builder = new StringBuilder();
 
@@ -41,8 +45,8 @@ public class AstPrinter implements Expr.Visitor<String> {
             } else if (part instanceof Stmt) {
                 builder.append(((Stmt) part).accept(this));
 //< Statements and State omit
-            } else if (part instanceof Token) {
-                builder.append(((Token) part).lexeme);
+            } else if (part instanceof List) {
+                builder.append(parenthesize2("list", ((List<?>) part).toArray()));
             } else {
                 builder.append(part);
             }
@@ -52,14 +56,122 @@ public class AstPrinter implements Expr.Visitor<String> {
         return builder.toString();
     }
 
+    @Override
+    public String visitBlockStmt(Stmt.Block stmt) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("(block ");
+
+        for (Stmt statement: stmt.statements) {
+            builder.append(statement.accept(this));
+        }
+
+        builder.append(")");
+        return builder.toString();
+    }
+
+    @Override
+    public String visitBreakStmt(Stmt.Break stmt) {
+        return "(break)";
+    }
+
+    @Override
+    public String visitClassStmt(Stmt.Class stmt) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("(class " + stmt.name);
+
+        if (stmt.superclass != null) {
+            builder.append(" < " + print(stmt.superclass));
+        }
+
+        for (Stmt.Function method: stmt.methods) {
+            builder.append(" " + print(method));
+        }
+
+        builder.append(")");
+        return builder.toString();
+    }
+
+    @Override
+    public String visitExpressionStmt(Stmt.Expression stmt) {
+        return parenthesize(";", stmt.expression);
+    }
+
+    @Override
+    public String visitFunctionStmt(Stmt.Function stmt) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("(fun " + stmt.name + "(");
+
+        for (int i = 0; i < stmt.params.size(); i++) {
+            if (i > 0)
+                builder.append(" ");
+            builder.append(stmt.params.get(i));
+        }
+
+        builder.append(") ");
+
+        for (Stmt body: stmt.body) {
+            builder.append(body.accept(this));
+        }
+
+        builder.append(")");
+        return builder.toString();
+    }
+
+    @Override
+    public String visitIfStmt(Stmt.If stmt) {
+        if (stmt.elseBranch == null) {
+            return parenthesize2("if", stmt.condition, stmt.thenBranch);
+        }
+
+        return parenthesize2("if-else", stmt.condition, stmt.thenBranch, stmt.elseBranch);
+    }
+
+    @Override
+    public String visitPrintStmt(Stmt.Print stmt) {
+        return parenthesize("print", stmt.expression);
+    }
+
+    @Override
+    public String visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.value == null) {
+            return "(return)";
+        }
+
+        return parenthesize("return", stmt.value);
+    }
+
+    @Override
+    public String visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) {
+            return parenthesize2("var", stmt.name);
+        }
+
+        return parenthesize2("var", stmt.name, "=", stmt.initializer);
+    }
+
+    @Override
+    public String visitWhileStmt(Stmt.While stmt) {
+        return parenthesize2("while", stmt.condition, stmt.body);
+    }
+
     @Override
     public String visitAssignExpr(Expr.Assign expr) {
-        return null;
+        return parenthesize2("=", expr.name, expr.value);
     }
 
     @Override
     public String visitBinaryExpr(Expr.Binary expr) {
-        return parenthesize(expr.operator.lexeme, expr.left, expr.right);
+        return parenthesize(symbol(expr.operator), expr.left, expr.right);
+    }
+
+    @Override
+    public String visitCallExpr(Expr.Call expr) {
+        return parenthesize2("call", expr.callee, expr.arguments);
+    }
+
+    @Override
+    public String visitGetExpr(Expr.Get expr) {
+        return parenthesize2(".", expr.object, expr.name);
     }
 
     @Override
@@ -67,6 +179,16 @@ public class AstPrinter implements Expr.Visitor<String> {
         return parenthesize("group", expr.expression);
     }
 
+    @Override
+    public String visitIncrementExpr(Expr.Increment expr) {
+        return parenthesize2(symbol(expr.operator) + "=", expr.name, expr.step);
+    }
+
+    @Override
+    public String visitInvariantExpr(Expr.Invariant expr) {
+        return parenthesize2("invariant#" + expr.slot, expr.expression);
+    }
+
     @Override
     public String visitLiteralExpr(Expr.Literal expr) {
         if (expr.value == null)
@@ -81,24 +203,61 @@ public class AstPrinter implements Expr.Visitor<String> {
      */
     @Override
     public String visitLogicalExpr(Expr.Logical expr) {
-        return parenthesize(expr.operator.lexeme, expr.left, expr.right);
+        return parenthesize(symbol(expr.operator), expr.left, expr.right);
+    }
+
+    @Override
+    public String visitSetExpr(Expr.Set expr) {
+        return parenthesize2("=", expr.object, expr.name, expr.value);
+    }
+
+    @Override
+    public String visitSpawnExpr(Expr.Spawn expr) {
+        return parenthesize("spawn", expr.call);
+    }
+
+    @Override
+    public String visitSuperExpr(Expr.Super expr) {
+        return parenthesize2("super", expr.method);
+    }
+
+    @Override
+    public String visitThisExpr(Expr.This expr) {
+        return "this";
     }
 
     @Override
     public String visitUnaryExpr(Expr.Unary expr) {
-        return parenthesize(expr.operator.lexeme, expr.right);
+        return parenthesize(symbol(expr.operator), expr.right);
     }
 
     @Override
     public String visitVariableExpr(Expr.Variable expr) {
-        return expr.name.lexeme;
+        return expr.name;
+    }
+
+    private static String symbol(TokenType operator) {
+        switch (operator) {
+            case MINUS: return "-";
+            case PLUS: return "+";
+            case SLASH: return "/";
+            case STAR: return "*";
+            case BANG: return "!";
+            case BANG_EQUAL: return "!=";
+            case EQUAL_EQUAL: return "==";
+            case GREATER: return ">";
+            case GREATER_EQUAL: return ">=";
+            case LESS: return "<";
+            case LESS_EQUAL: return "<=";
+            default: return operator.name().toLowerCase();
+        }
     }
 
     public static void main(String[] args) {
         Expr expression =
-            new Expr.Binary(new Expr.Unary(new Token(TokenType.MINUS, "-", null, 1), new Expr.Literal(123)),
-                new Token(TokenType.STAR, "*", null, 1),
-                new Expr.Grouping(new Expr.Literal(45.67)));
+            new Expr.Binary(new Expr.Unary(TokenType.MINUS, new Expr.Literal(123), 1),
+                TokenType.STAR,
+                new Expr.Grouping(new Expr.Literal(45.67)), 1, ValueType.ANY);
         System.out.println(new AstPrinter().print(expression));
     }
 }
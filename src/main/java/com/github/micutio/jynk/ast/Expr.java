@@ -1,28 +1,83 @@
 package com.github.micutio.jynk.ast;
 
-import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.lexing.TokenType;
 
 import java.util.List;
 
 public abstract class Expr {
+    public static final int ASSIGN = 0;
+    public static final int BINARY = 1;
+    public static final int CALL = 2;
+    public static final int GET = 3;
+    public static final int GROUPING = 4;
+    public static final int INCREMENT = 5;
+    public static final int INVARIANT = 6;
+    public static final int LITERAL = 7;
+    public static final int LOGICAL = 8;
+    public static final int SET = 9;
+    public static final int SPAWN = 10;
+    public static final int SUPER = 11;
+    public static final int THIS = 12;
+    public static final int UNARY = 13;
+    public static final int VARIABLE = 14;
+
+    public final int kind;
+
+    private Expr(int kind) {
+        this.kind = kind;
+    }
+
     public interface Visitor<R> {
         R visitAssignExpr(Assign expr);
         R visitBinaryExpr(Binary expr);
         R visitCallExpr(Call expr);
+        R visitGetExpr(Get expr);
         R visitGroupingExpr(Grouping expr);
+        R visitIncrementExpr(Increment expr);
+        R visitInvariantExpr(Invariant expr);
         R visitLiteralExpr(Literal expr);
         R visitLogicalExpr(Logical expr);
+        R visitSetExpr(Set expr);
+        R visitSpawnExpr(Spawn expr);
+        R visitSuperExpr(Super expr);
+        R visitThisExpr(This expr);
         R visitUnaryExpr(Unary expr);
         R visitVariableExpr(Variable expr);
     }
 
-    public static class Assign extends Expr {
-        public final Token name;
+    public static <R> R dispatch(Expr expr, Visitor<R> visitor) {
+        switch (expr.kind) {
+            case ASSIGN: return visitor.visitAssignExpr((Assign) expr);
+            case BINARY: return visitor.visitBinaryExpr((Binary) expr);
+            case CALL: return visitor.visitCallExpr((Call) expr);
+            case GET: return visitor.visitGetExpr((Get) expr);
+            case GROUPING: return visitor.visitGroupingExpr((Grouping) expr);
+            case INCREMENT: return visitor.visitIncrementExpr((Increment) expr);
+            case INVARIANT: return visitor.visitInvariantExpr((Invariant) expr);
+            case LITERAL: return visitor.visitLiteralExpr((Literal) expr);
+            case LOGICAL: return visitor.visitLogicalExpr((Logical) expr);
+            case SET: return visitor.visitSetExpr((Set) expr);
+            case SPAWN: return visitor.visitSpawnExpr((Spawn) expr);
+            case SUPER: return visitor.visitSuperExpr((Super) expr);
+            case THIS: return visitor.visitThisExpr((This) expr);
+            case UNARY: return visitor.visitUnaryExpr((Unary) expr);
+            case VARIABLE: return visitor.visitVariableExpr((Variable) expr);
+            default: throw new IllegalStateException("Unknown kind " + expr.kind);
+        }
+    }
+
+    public static final class Assign extends Expr {
+        public final String name;
         public final Expr value;
+        public final int line;
+        public final int depth;
 
-        public Assign(Token name, Expr value) {
+        public Assign(String name, Expr value, int line, int depth) {
+            super(ASSIGN);
             this.name = name;
             this.value = value;
+            this.line = line;
+            this.depth = depth;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -30,15 +85,20 @@ public abstract class Expr {
         }
     }
 
-    public static class Binary extends Expr {
+    public static final class Binary extends Expr {
         public final Expr left;
-        public final Token operator;
+        public final TokenType operator;
         public final Expr right;
+        public final int line;
+        public final ValueType operands;
 
-        public Binary(Expr left, Token operator, Expr right) {
+        public Binary(Expr left, TokenType operator, Expr right, int line, ValueType operands) {
+            super(BINARY);
             this.left = left;
             this.operator = operator;
             this.right = right;
+            this.line = line;
+            this.operands = operands;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -46,15 +106,16 @@ public abstract class Expr {
         }
     }
 
-    public static class Call extends Expr {
+    public static final class Call extends Expr {
         public final Expr callee;
-        public final Token paren;
         public final List<Expr> arguments;
+        public final int line;
 
-        public Call(Expr callee, Token paren, List<Expr> arguments) {
+        public Call(Expr callee, List<Expr> arguments, int line) {
+            super(CALL);
             this.callee = callee;
-            this.paren = paren;
             this.arguments = arguments;
+            this.line = line;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -62,10 +123,30 @@ public abstract class Expr {
         }
     }
 
-    public static class Grouping extends Expr {
+    public static final class Get extends Expr {
+        public final Expr object;
+        public final String name;
+        public final InlineCache cache;
+        public final int line;
+
+        public Get(Expr object, String name, InlineCache cache, int line) {
+            super(GET);
+            this.object = object;
+            this.name = name;
+            this.cache = cache;
+            this.line = line;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitGetExpr(this);
+        }
+    }
+
+    public static final class Grouping extends Expr {
         public final Expr expression;
 
         public Grouping(Expr expression) {
+            super(GROUPING);
             this.expression = expression;
         }
 
@@ -74,10 +155,47 @@ public abstract class Expr {
         }
     }
 
-    public static class Literal extends Expr {
+    public static final class Increment extends Expr {
+        public final String name;
+        public final TokenType operator;
+        public final Object step;
+        public final int line;
+        public final int depth;
+
+        public Increment(String name, TokenType operator, Object step, int line, int depth) {
+            super(INCREMENT);
+            this.name = name;
+            this.operator = operator;
+            this.step = step;
+            this.line = line;
+            this.depth = depth;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitIncrementExpr(this);
+        }
+    }
+
+    public static final class Invariant extends Expr {
+        public final Expr expression;
+        public final int slot;
+
+        public Invariant(Expr expression, int slot) {
+            super(INVARIANT);
+            this.expression = expression;
+            this.slot = slot;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitInvariantExpr(this);
+        }
+    }
+
+    public static final class Literal extends Expr {
         public final Object value;
 
         public Literal(Object value) {
+            super(LITERAL);
             this.value = value;
         }
 
@@ -86,15 +204,18 @@ public abstract class Expr {
         }
     }
 
-    public static class Logical extends Expr {
+    public static final class Logical extends Expr {
         public final Expr left;
-        public final Token operator;
+        public final TokenType operator;
         public final Expr right;
+        public final int line;
 
-        public Logical(Expr left, Token operator, Expr right) {
+        public Logical(Expr left, TokenType operator, Expr right, int line) {
+            super(LOGICAL);
             this.left = left;
             this.operator = operator;
             this.right = right;
+            this.line = line;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -102,13 +223,86 @@ public abstract class Expr {
         }
     }
 
-    public static class Unary extends Expr {
-        public final Token operator;
+    public static final class Set extends Expr {
+        public final Expr object;
+        public final String name;
+        public final Expr value;
+        public final InlineCache cache;
+        public final int line;
+
+        public Set(Expr object, String name, Expr value, InlineCache cache, int line) {
+            super(SET);
+            this.object = object;
+            this.name = name;
+            this.value = value;
+            this.cache = cache;
+            this.line = line;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSetExpr(this);
+        }
+    }
+
+    public static final class Spawn extends Expr {
+        public final Call call;
+        public final int line;
+
+        public Spawn(Call call, int line) {
+            super(SPAWN);
+            this.call = call;
+            this.line = line;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSpawnExpr(this);
+        }
+    }
+
+    public static final class Super extends Expr {
+        public final String method;
+        public final int line;
+        public final int depth;
+        public final int thisDepth;
+
+        public Super(String method, int line, int depth, int thisDepth) {
+            super(SUPER);
+            this.method = method;
+            this.line = line;
+            this.depth = depth;
+            this.thisDepth = thisDepth;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitSuperExpr(this);
+        }
+    }
+
+    public static final class This extends Expr {
+        public final int line;
+        public final int depth;
+
+        public This(int line, int depth) {
+            super(THIS);
+            this.line = line;
+            this.depth = depth;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitThisExpr(this);
+        }
+    }
+
+    public static final class Unary extends Expr {
+        public final TokenType operator;
         public final Expr right;
+        public final int line;
 
-        public Unary(Token operator, Expr right) {
+        public Unary(TokenType operator, Expr right, int line) {
+            super(UNARY);
             this.operator = operator;
             this.right = right;
+            this.line = line;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -116,11 +310,16 @@ public abstract class Expr {
         }
     }
 
-    public static class Variable extends Expr {
-        public final Token name;
+    public static final class Variable extends Expr {
+        public final String name;
+        public final int line;
+        public final int depth;
 
-        public Variable(Token name) {
+        public Variable(String name, int line, int depth) {
+            super(VARIABLE);
             this.name = name;
+            this.line = line;
+            this.depth = depth;
         }
 
         public <R> R accept(Visitor<R> visitor) {
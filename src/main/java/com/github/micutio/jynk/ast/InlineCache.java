@@ -0,0 +1,74 @@
+package com.github.micutio.jynk.ast;
+
+/**
+ * Inline cache of a point of the program that looks something up by the shape of an object. Property accesses use
+ * one to remember where a property was found for the last few shapes of the objects they saw, class declarations to
+ * re-use the shapes of their instances whenever the declaration runs again. The parser creates an empty cache, the
+ * interpreter fills it in.
+ *
+ * A cache with one entry is monomorphic, with up to `MAX_ENTRIES` it is polymorphic. Sites that see more shapes than
+ * that are megamorphic and stop caching, since a lookup in a long list would be no faster than looking the property up
+ * again. Caches are shared by all interpreters that run a script. Entries are immutable and a racing update can at
+ * worst lose an entry, so no locking is needed.
+ */
+public final class InlineCache {
+    public static final int MAX_ENTRIES = 4;
+
+    /**
+     * What was found for one shape.
+     */
+    public static final class Entry {
+        public final Object shape;
+        // index of the field, or -1 if the property is not a field
+        public final int slot;
+        // what the shape resolves to besides the slot, like a method or the shape after adding a field
+        public final Object target;
+
+        private final Entry next;
+        private final int count;
+
+        public Entry(Object shape, int slot, Object target) {
+            this(shape, slot, target, null);
+        }
+
+        private Entry(Object shape, int slot, Object target, Entry next) {
+            this.shape = shape;
+            this.slot = slot;
+            this.target = target;
+            this.next = next;
+            this.count = next == null ? 1 : next.count + 1;
+        }
+    }
+
+    private Entry entries = null;
+    private boolean megamorphic = false;
+
+    /**
+     * @return the entry for the shape, or `null` if there is none
+     */
+    public Entry lookup(Object shape) {
+        for (Entry entry = entries; entry != null; entry = entry.next) {
+            if (entry.shape == shape) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remember what was found for the shape, unless the site has already seen too many shapes.
+     */
+    public void add(Object shape, int slot, Object target) {
+        if (megamorphic) {
+            return;
+        }
+
+        Entry current = entries;
+        if (current != null && current.count == MAX_ENTRIES) {
+            megamorphic = true;
+            entries = null;
+            return;
+        }
+        entries = new Entry(shape, slot, target, current);
+    }
+}
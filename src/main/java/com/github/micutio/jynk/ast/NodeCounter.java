@@ -0,0 +1,54 @@
+package com.github.micutio.jynk.ast;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Counts the nodes of a syntax tree by walking the public fields of all nodes, so that it keeps working as node
+ * types are added.
+ *
+ * The variables that functions and classes capture, see `Resolver`, are left out. They are copies of uses found in
+ * the bodies, not part of the source, and would make the count depend on how the tree was resolved.
+ */
+public final class NodeCounter {
+    private static final String CAPTURES = "captures";
+
+    private NodeCounter() {}
+
+    public static long count(List<?> nodes) {
+        return count(nodes, node -> true);
+    }
+
+    /**
+     * @return the number of nodes that the filter accepts
+     */
+    public static long count(List<?> nodes, Predicate<Object> filter) {
+        long count = 0;
+        for (Object node: nodes) {
+            count += count(node, filter);
+        }
+        return count;
+    }
+
+    private static long count(Object node, Predicate<Object> filter) {
+        if (node instanceof List) {
+            return count((List<?>) node, filter);
+        }
+        if (!(node instanceof Expr || node instanceof Stmt)) {
+            return 0;
+        }
+
+        long count = filter.test(node) ? 1 : 0;
+        try {
+            for (Field field: node.getClass().getFields()) {
+                if (!field.getName().equals(CAPTURES)) {
+                    count += count(field.get(node), filter);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return count;
+    }
+}
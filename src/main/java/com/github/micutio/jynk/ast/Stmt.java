@@ -1,23 +1,61 @@
 package com.github.micutio.jynk.ast;
 
-import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.lexing.TokenType;
 
 import java.util.List;
 
 public abstract class Stmt {
+    public static final int BLOCK = 0;
+    public static final int BREAK = 1;
+    public static final int CLASS = 2;
+    public static final int EXPRESSION = 3;
+    public static final int FUNCTION = 4;
+    public static final int IF = 5;
+    public static final int PRINT = 6;
+    public static final int RETURN = 7;
+    public static final int VAR = 8;
+    public static final int WHILE = 9;
+
+    public final int kind;
+
+    private Stmt(int kind) {
+        this.kind = kind;
+    }
+
     public interface Visitor<R> {
         R visitBlockStmt(Block stmt);
+        R visitBreakStmt(Break stmt);
+        R visitClassStmt(Class stmt);
         R visitExpressionStmt(Expression stmt);
+        R visitFunctionStmt(Function stmt);
         R visitIfStmt(If stmt);
         R visitPrintStmt(Print stmt);
+        R visitReturnStmt(Return stmt);
         R visitVarStmt(Var stmt);
         R visitWhileStmt(While stmt);
     }
 
-    public static class Block extends Stmt {
+    public static <R> R dispatch(Stmt stmt, Visitor<R> visitor) {
+        switch (stmt.kind) {
+            case BLOCK: return visitor.visitBlockStmt((Block) stmt);
+            case BREAK: return visitor.visitBreakStmt((Break) stmt);
+            case CLASS: return visitor.visitClassStmt((Class) stmt);
+            case EXPRESSION: return visitor.visitExpressionStmt((Expression) stmt);
+            case FUNCTION: return visitor.visitFunctionStmt((Function) stmt);
+            case IF: return visitor.visitIfStmt((If) stmt);
+            case PRINT: return visitor.visitPrintStmt((Print) stmt);
+            case RETURN: return visitor.visitReturnStmt((Return) stmt);
+            case VAR: return visitor.visitVarStmt((Var) stmt);
+            case WHILE: return visitor.visitWhileStmt((While) stmt);
+            default: throw new IllegalStateException("Unknown kind " + stmt.kind);
+        }
+    }
+
+    public static final class Block extends Stmt {
         public final List<Stmt> statements;
 
         public Block(List<Stmt> statements) {
+            super(BLOCK);
             this.statements = statements;
         }
 
@@ -26,10 +64,45 @@ public abstract class Stmt {
         }
     }
 
-    public static class Expression extends Stmt {
+    public static final class Break extends Stmt {
+        public final int line;
+
+        public Break(int line) {
+            super(BREAK);
+            this.line = line;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitBreakStmt(this);
+        }
+    }
+
+    public static final class Class extends Stmt {
+        public final String name;
+        public final Expr.Variable superclass;
+        public final List<Stmt.Function> methods;
+        public final InlineCache shapes;
+        public final List<Expr.Variable> captures;
+
+        public Class(String name, Expr.Variable superclass, List<Stmt.Function> methods, InlineCache shapes, List<Expr.Variable> captures) {
+            super(CLASS);
+            this.name = name;
+            this.superclass = superclass;
+            this.methods = methods;
+            this.shapes = shapes;
+            this.captures = captures;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitClassStmt(this);
+        }
+    }
+
+    public static final class Expression extends Stmt {
         public final Expr expression;
 
         public Expression(Expr expression) {
+            super(EXPRESSION);
             this.expression = expression;
         }
 
@@ -38,12 +111,32 @@ public abstract class Stmt {
         }
     }
 
-    public static class If extends Stmt {
+    public static final class Function extends Stmt {
+        public final String name;
+        public final List<String> params;
+        public final List<Stmt> body;
+        public final List<Expr.Variable> captures;
+
+        public Function(String name, List<String> params, List<Stmt> body, List<Expr.Variable> captures) {
+            super(FUNCTION);
+            this.name = name;
+            this.params = params;
+            this.body = body;
+            this.captures = captures;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitFunctionStmt(this);
+        }
+    }
+
+    public static final class If extends Stmt {
         public final Expr condition;
         public final Stmt thenBranch;
         public final Stmt elseBranch;
 
         public If(Expr condition, Stmt thenBranch, Stmt elseBranch) {
+            super(IF);
             this.condition = condition;
             this.thenBranch = thenBranch;
             this.elseBranch = elseBranch;
@@ -54,10 +147,11 @@ public abstract class Stmt {
         }
     }
 
-    public static class Print extends Stmt {
+    public static final class Print extends Stmt {
         public final Expr expression;
 
         public Print(Expr expression) {
+            super(PRINT);
             this.expression = expression;
         }
 
@@ -66,13 +160,31 @@ public abstract class Stmt {
         }
     }
 
-    public static class Var extends Stmt {
-        public final Token name;
+    public static final class Return extends Stmt {
+        public final Expr value;
+        public final int line;
+
+        public Return(Expr value, int line) {
+            super(RETURN);
+            this.value = value;
+            this.line = line;
+        }
+
+        public <R> R accept(Visitor<R> visitor) {
+            return visitor.visitReturnStmt(this);
+        }
+    }
+
+    public static final class Var extends Stmt {
+        public final String name;
         public final Expr initializer;
+        public final int line;
 
-        public Var(Token name, Expr initializer) {
+        public Var(String name, Expr initializer, int line) {
+            super(VAR);
             this.name = name;
             this.initializer = initializer;
+            this.line = line;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -80,13 +192,16 @@ public abstract class Stmt {
         }
     }
 
-    public static class While extends Stmt {
+    public static final class While extends Stmt {
         public final Expr condition;
         public final Stmt body;
+        public final int invariants;
 
-        public While(Expr condition, Stmt body) {
+        public While(Expr condition, Stmt body, int invariants) {
+            super(WHILE);
             this.condition = condition;
             this.body = body;
+            this.invariants = invariants;
         }
 
         public <R> R accept(Visitor<R> visitor) {
@@ -0,0 +1,20 @@
+package com.github.micutio.jynk.ast;
+
+/**
+ * What is known about the values of an expression before the script runs, see `TypeInference`.
+ */
+public enum ValueType {
+    NUMBER,
+    STRING,
+    BOOLEAN,
+    NIL,
+    /** Could be any value, or nothing was proven about it. */
+    ANY;
+
+    /**
+     * @return the type of values that could come from either of two expressions
+     */
+    public ValueType join(ValueType other) {
+        return this == other ? this : ANY;
+    }
+}
@@ -0,0 +1,692 @@
+package com.github.micutio.jynk.compiler;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.ast.ValueType;
+import com.github.micutio.jynk.lexing.TokenType;
+import com.github.micutio.jynk.optimizing.PurityAnalysis;
+import com.github.micutio.jynk.parsing.Resolver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates a resolved syntax tree into the source code of a Java class that implements `CompiledScript`.
+ *
+ * - The top level of the script becomes the methods `run0`, `run1` and so on, which `run` calls one after the other.
+ *   Functions become subclasses of `CompiledFunction` and classes are built from subclasses of `CompiledMethod`, all
+ *   of them anonymous classes nested where they are declared.
+ * - Local variables become Java variables. Those captured by a nested function or class are kept in a one-element
+ *   array, so that the function and the scope that declared them share the variable. Globals are looked up in the
+ *   interpreter.
+ * - Everything else is done by the static methods of `Operations`, which raise the same errors as the interpreter.
+ *   Arithmetic on operands that `TypeInference` proved to be numbers calls `Numbers` directly.
+ */
+final class JavaGenerator implements Expr.Visitor<String>, Stmt.Visitor<Void> {
+    /**
+     * A local variable of the script and the Java variable that holds it.
+     */
+    private static final class Local {
+        final String name;
+        final boolean boxed;
+
+        Local(String name, boolean boxed) {
+            this.name = name;
+            this.boxed = boxed;
+        }
+
+        String read() {
+            return boxed ? name + "[0]" : name;
+        }
+    }
+
+    /**
+     * The Java method that is being generated: the body of a function, a method or the top level of the script.
+     */
+    private static final class Body {
+        final StringBuilder code = new StringBuilder();
+        // names of the local variables that nested functions and classes capture
+        final Set<String> captured;
+        // temporary variables for the results of logical operators
+        int temporaries = 0;
+        // index of the outermost scope of the body in `scopes`, the scopes before it belong to enclosing bodies
+        int firstScope;
+
+        Body(List<Stmt> statements) {
+            captured = Resolver.captured(statements);
+        }
+    }
+
+    // characters of Java code per method that the top level is split into, which keeps the bytecode of each of them
+    // well below the limit of 64 KB per method
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final String className;
+    private final Map<Object, String> constants = new HashMap<>();
+    private final StringBuilder constantFields = new StringBuilder();
+    // the local scopes of all enclosing bodies, innermost last; the top level of the script declares globals
+    private final List<Map<String, Local>> scopes = new ArrayList<>();
+    // for each scope, the locals that nested functions and classes capture before their declaration has run
+    private final List<Map<String, Local>> later = new ArrayList<>();
+    private Body body;
+    private int indent;
+    private int nextName = 0;
+    // Java variables of `this` and `super` in the enclosing method, `null` outside of a class
+    private String self = null;
+    private String superclass = null;
+    // calls of the pure function that is being generated of itself, see `CompiledFunction.recursingInto`
+    private Set<Expr.Call> recursiveCalls = Set.of();
+
+    private JavaGenerator(String className) {
+        this.className = className;
+    }
+
+    /**
+     * @param statements the resolved statements of the script
+     * @param className name of the class to generate, in the unnamed package
+     * @return the source code of the class
+     */
+    static String generate(List<Stmt> statements, String className) {
+        return new JavaGenerator(className).generateClass(statements);
+    }
+
+    private String generateClass(List<Stmt> statements) {
+        List<String> chunks = topLevel(statements);
+
+        StringBuilder source = new StringBuilder();
+        source.append("import com.github.micutio.jynk.CompiledScript;\n");
+        source.append("import com.github.micutio.jynk.interpreter.CompiledClass;\n");
+        source.append("import com.github.micutio.jynk.interpreter.CompiledFunction;\n");
+        source.append("import com.github.micutio.jynk.interpreter.CompiledInstance;\n");
+        source.append("import com.github.micutio.jynk.interpreter.CompiledMethod;\n");
+        source.append("import com.github.micutio.jynk.interpreter.Interpreter;\n");
+        source.append("import com.github.micutio.jynk.interpreter.Numbers;\n");
+        source.append("import com.github.micutio.jynk.interpreter.Operations;\n");
+        source.append("import com.github.micutio.jynk.lexing.TokenType;\n\n");
+        source.append("public final class ").append(className).append(" implements CompiledScript {\n");
+        source.append(constantFields);
+        source.append("\n    public static void main(String[] args) {\n");
+        source.append("        CompiledScript.main(new ").append(className).append("());\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    public void run(Interpreter interpreter) {\n");
+        // like `Interpreter.interpret`, which flushes the files that the script did not close
+        source.append("        try {\n");
+        for (int i = 0; i < chunks.size(); i++) {
+            source.append("            run").append(i).append("(interpreter);\n");
+        }
+        source.append("        } finally {\n");
+        source.append("            interpreter.flushFiles();\n");
+        source.append("        }\n");
+        source.append("    }\n");
+        for (int i = 0; i < chunks.size(); i++) {
+            source.append("\n    private void run").append(i).append("(Interpreter interpreter) {\n");
+            source.append(chunks.get(i));
+            source.append("    }\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Generate the top level of the script as the bodies of several methods, each of them about `CHUNK_SIZE` long.
+     * Variables of the top level are globals, and the locals of a block do not outlive its statement, so no Java
+     * variable is shared between two methods.
+     */
+    private List<String> topLevel(List<Stmt> statements) {
+        body = new Body(statements);
+        body.firstScope = -1;
+        indent = 2;
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        int firstTemporary = 0;
+        for (int i = 0; i < statements.size(); i++) {
+            execute(statements.get(i));
+            if (body.code.length() - start >= CHUNK_SIZE || i == statements.size() - 1) {
+                StringBuilder chunk = new StringBuilder();
+                for (int t = firstTemporary; t < body.temporaries; t++) {
+                    chunk.append(pad(indent)).append("Object t").append(t).append(" = null;\n");
+                }
+                chunks.add(chunk.append(body.code, start, body.code.length()).toString());
+                start = body.code.length();
+                firstTemporary = body.temporaries;
+            }
+        }
+        body = null;
+        return chunks;
+    }
+
+    /**
+     * Generate a method body, which is indented by the given number of levels.
+     * @param params parameters to declare in the innermost scope, taken from the array `arguments`
+     */
+    private String body(List<String> params, List<Stmt> statements, int level) {
+        Body enclosing = body;
+        int enclosingIndent = indent;
+        try {
+            body = new Body(statements);
+            body.firstScope = scopes.size() - 1;
+            indent = level;
+            for (int i = 0; i < params.size(); i++) {
+                declare(params.get(i), "arguments[" + i + "]");
+            }
+            if (!isGlobalScope()) {
+                declareAhead(statements);
+            }
+            for (Stmt statement: statements) {
+                execute(statement);
+            }
+
+            StringBuilder code = new StringBuilder();
+            for (int i = 0; i < body.temporaries; i++) {
+                code.append(pad(level)).append("Object t").append(i).append(" = null;\n");
+            }
+            return code.append(body.code).toString();
+        } finally {
+            body = enclosing;
+            indent = enclosingIndent;
+        }
+    }
+
+    private void beginScope() {
+        scopes.add(new HashMap<>());
+        later.add(new HashMap<>());
+    }
+
+    private void endScope() {
+        scopes.remove(scopes.size() - 1);
+        later.remove(later.size() - 1);
+    }
+
+    /**
+     * Create the Java variables of the functions and classes of the innermost scope that functions and classes
+     * declared before them capture, so that they can be captured before their declaration runs, see `Resolver`.
+     */
+    private void declareAhead(List<Stmt> statements) {
+        Set<String> captured = new HashSet<>();
+        for (Stmt statement: statements) {
+            String name = declaredCallable(statement);
+            if (name != null && captured.contains(name) && lookUpDeclared(name) == null) {
+                Local local = new Local("v" + nextName++ + "_" + name, true);
+                later.get(later.size() - 1).put(name, local);
+                line("Object[] " + local.name + " = {null};");
+            }
+            captured.addAll(Resolver.captured(List.of(statement)));
+        }
+    }
+
+    private static String declaredCallable(Stmt stmt) {
+        switch (stmt.kind) {
+            case Stmt.FUNCTION: return ((Stmt.Function) stmt).name;
+            case Stmt.CLASS: return ((Stmt.Class) stmt).name;
+            default: return null;
+        }
+    }
+
+    private Local lookUpDeclared(String name) {
+        Local local = scopes.get(scopes.size() - 1).get(name);
+        return local != null ? local : later.get(later.size() - 1).get(name);
+    }
+
+    private void line(String code) {
+        body.code.append(pad(indent)).append(code).append('\n');
+    }
+
+    private static String pad(int level) {
+        return "    ".repeat(level);
+    }
+
+    private void execute(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    private String evaluate(Expr expr) {
+        return expr.accept(this);
+    }
+
+    private boolean isGlobalScope() {
+        return scopes.isEmpty();
+    }
+
+    private Local lookUp(String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Local local = scopes.get(i).get(name);
+            // like the `Resolver`, only nested functions and classes see variables declared later
+            if (local == null && i < body.firstScope) {
+                local = later.get(i).get(name);
+            }
+            if (local != null) {
+                return local;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Declare a variable in the innermost local scope. Declaring a variable again in the same scope assigns it, just
+     * like the interpreter defines it again in the same environment.
+     */
+    private void declare(String name, String value) {
+        Map<String, Local> scope = scopes.get(scopes.size() - 1);
+        Local local = lookUpDeclared(name);
+        if (local != null) {
+            scope.put(name, local);
+            line(local.read() + " = " + value + ";");
+            return;
+        }
+
+        local = new Local("v" + nextName++ + "_" + name, body.captured.contains(name));
+        scope.put(name, local);
+        if (local.boxed) {
+            line("Object[] " + local.name + " = {" + value + "};");
+        } else {
+            line("Object " + local.name + " = " + value + ";");
+        }
+    }
+
+    /**
+     * Define a variable in the current scope, global or local.
+     */
+    private void define(String name, String value) {
+        if (isGlobalScope()) {
+            line("Operations.define(interpreter, " + quote(name) + ", " + value + ");");
+        } else {
+            declare(name, value);
+        }
+    }
+
+    private void assignDeclared(String name, String value) {
+        if (isGlobalScope()) {
+            line("Operations.define(interpreter, " + quote(name) + ", " + value + ");");
+        } else {
+            line(lookUp(name).read() + " = " + value + ";");
+        }
+    }
+
+    private String global(String name, int line) {
+        return "Operations.global(interpreter, " + quote(name) + ", " + line + ")";
+    }
+
+    private String constant(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Boolean) {
+            return (boolean) value ? "Boolean.TRUE" : "Boolean.FALSE";
+        }
+        if (value instanceof String) {
+            // string literals are interned by the JVM, just like the scanner interns them
+            return quote((String) value);
+        }
+
+        String name = constants.get(value);
+        if (name == null) {
+            name = "K" + constants.size();
+            constants.put(value, name);
+            constantFields.append("    private static final Object ").append(name).append(" = ")
+                .append(number(value)).append(";\n");
+        }
+        return name;
+    }
+
+    private static String number(Object value) {
+        if (value instanceof Long) {
+            return "Long.valueOf(" + value + "L)";
+        }
+        if (value instanceof Double) {
+            double number = (double) value;
+            if (Double.isNaN(number)) {
+                return "Double.valueOf(Double.NaN)";
+            }
+            if (Double.isInfinite(number)) {
+                return number > 0 ? "Double.valueOf(Double.POSITIVE_INFINITY)"
+                    : "Double.valueOf(Double.NEGATIVE_INFINITY)";
+            }
+            return "Double.valueOf(" + number + ")";
+        }
+        throw new IllegalArgumentException("Cannot compile a literal of " + value.getClass());
+    }
+
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    // javac replaces unicode escapes before it reads the literal, so line breaks have to be octal
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\%03o", (int) c));
+                    } else if (c > 0x7e) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private String arguments(List<Expr> arguments) {
+        if (arguments.isEmpty()) {
+            return "Operations.NO_ARGUMENTS";
+        }
+        List<String> values = new ArrayList<>();
+        for (Expr argument: arguments) {
+            values.add(evaluate(argument));
+        }
+        return "new Object[] {" + String.join(", ", values) + "}";
+    }
+
+    /**
+     * @return the code of a `CompiledFunction` that runs the function
+     */
+    private String function(Stmt.Function stmt) {
+        // decided here, since the compiled function no longer has a syntax tree to analyze
+        String impurity = PurityAnalysis.impurity(stmt);
+        Set<Expr.Call> enclosingCalls = recursiveCalls;
+        try {
+            recursiveCalls = impurity == null ? PurityAnalysis.recursiveCalls(stmt) : Set.of();
+            return callable(stmt, "CompiledFunction", ", " + (impurity == null ? "null" : quote(impurity)),
+                "Interpreter interpreter, Object[] arguments");
+        } finally {
+            recursiveCalls = enclosingCalls;
+        }
+    }
+
+    /**
+     * @param self Java variable of `this` in the method
+     * @return the code of a `CompiledMethod` that runs the method
+     */
+    private String method(Stmt.Function stmt, String self) {
+        String enclosingSelf = this.self;
+        try {
+            this.self = self;
+            // an element of the array of methods, one level further in than the class
+            indent += 1;
+            return pad(indent) + callable(stmt, "CompiledMethod", "",
+                "Interpreter interpreter, CompiledInstance " + self + ", Object[] arguments");
+        } finally {
+            this.self = enclosingSelf;
+            indent -= 1;
+        }
+    }
+
+    /**
+     * @param extra code of the constructor arguments after the name and arity, starting with a comma
+     */
+    private String callable(Stmt.Function stmt, String type, String extra, String parameters) {
+        beginScope();
+        try {
+            return "new " + type + "(" + quote(stmt.name) + ", " + stmt.params.size() + extra + ") {\n"
+                + pad(indent + 1) + "@Override\n"
+                + pad(indent + 1) + "public Object invoke(" + parameters + ") {\n"
+                + body(stmt.params, stmt.body, indent + 2)
+                + pad(indent + 2) + "return null;\n"
+                + pad(indent + 1) + "}\n"
+                + pad(indent) + "}";
+        } finally {
+            endScope();
+        }
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        line("{");
+        indent += 1;
+        beginScope();
+        try {
+            declareAhead(stmt.statements);
+            for (Stmt statement: stmt.statements) {
+                execute(statement);
+            }
+        } finally {
+            endScope();
+            indent -= 1;
+        }
+        line("}");
+        return null;
+    }
+
+    @Override
+    public Void visitBreakStmt(Stmt.Break stmt) {
+        // `if (true)` keeps the statements after it reachable in the eyes of javac
+        line("if (true) break;");
+        return null;
+    }
+
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        String enclosingSuperclass = superclass;
+        try {
+            if (stmt.superclass != null) {
+                superclass = "s" + nextName++;
+                line("CompiledClass " + superclass + " = Operations.superclass(" + evaluate(stmt.superclass) + ", "
+                    + stmt.superclass.line + ");");
+            }
+            define(stmt.name, "null");
+
+            List<String> methods = new ArrayList<>();
+            for (Stmt.Function method: stmt.methods) {
+                methods.add(method(method, "self" + nextName++));
+            }
+            String klass = "new CompiledClass(" + quote(stmt.name) + ", "
+                + (stmt.superclass == null ? "null" : superclass) + ", new CompiledMethod[] {\n"
+                + String.join(",\n", methods) + "\n" + pad(indent) + "})";
+            assignDeclared(stmt.name, klass);
+        } finally {
+            superclass = enclosingSuperclass;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expr = stmt.expression;
+        String code = evaluate(expr);
+        switch (expr.kind) {
+            case Expr.ASSIGN:
+            case Expr.INCREMENT:
+                // a local assignment is parenthesized as an expression, but not as a statement
+                if (code.startsWith("(")) {
+                    code = code.substring(1, code.length() - 1);
+                }
+                break;
+            case Expr.BINARY:
+            case Expr.CALL:
+            case Expr.GET:
+            case Expr.SET:
+            case Expr.SPAWN:
+            case Expr.SUPER:
+            case Expr.UNARY:
+                break;
+            default:
+                code = "Operations.ignore(" + code + ")";
+        }
+        line(code + ";");
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        // declared before the body, so that the function can call itself
+        define(stmt.name, "null");
+        assignDeclared(stmt.name, function(stmt));
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        line("if (Operations.isTruthy(" + evaluate(stmt.condition) + ")) {");
+        indent += 1;
+        execute(stmt.thenBranch);
+        indent -= 1;
+        if (stmt.elseBranch != null) {
+            line("} else {");
+            indent += 1;
+            execute(stmt.elseBranch);
+            indent -= 1;
+        }
+        line("}");
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        line("Operations.print(interpreter, " + evaluate(stmt.expression) + ");");
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        line("if (true) return " + (stmt.value == null ? "null" : evaluate(stmt.value)) + ";");
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        // the initializer still sees an outer variable of the same name
+        define(stmt.name, stmt.initializer == null ? "null" : evaluate(stmt.initializer));
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        line("while (Operations.isTruthy(" + evaluate(stmt.condition) + ")) {");
+        indent += 1;
+        execute(stmt.body);
+        indent -= 1;
+        line("}");
+        return null;
+    }
+
+    @Override
+    public String visitAssignExpr(Expr.Assign expr) {
+        String value = evaluate(expr.value);
+        Local local = expr.depth == Resolver.GLOBAL ? null : lookUp(expr.name);
+        if (local == null) {
+            return "Operations.assignGlobal(interpreter, " + quote(expr.name) + ", " + value + ", " + expr.line + ")";
+        }
+        return "(" + local.read() + " = " + value + ")";
+    }
+
+    @Override
+    public String visitBinaryExpr(Expr.Binary expr) {
+        String left = evaluate(expr.left);
+        String right = evaluate(expr.right);
+        // numbers proven by `TypeInference` need no checks
+        boolean isArithmetic = expr.operator != TokenType.EQUAL_EQUAL && expr.operator != TokenType.BANG_EQUAL;
+        if (expr.operands == ValueType.NUMBER && isArithmetic) {
+            return "Numbers.binary(TokenType." + expr.operator + ", " + left + ", " + right + ")";
+        }
+        switch (expr.operator) {
+            case PLUS: return "Operations.add(" + left + ", " + right + ", " + expr.line + ")";
+            case EQUAL_EQUAL: return "Operations.equal(" + left + ", " + right + ")";
+            case BANG_EQUAL: return "Operations.notEqual(" + left + ", " + right + ")";
+            default:
+                return "Operations.binary(TokenType." + expr.operator + ", " + left + ", " + right + ", " + expr.line
+                    + ")";
+        }
+    }
+
+    @Override
+    public String visitCallExpr(Expr.Call expr) {
+        String callee = evaluate(expr.callee);
+        if (recursiveCalls.contains(expr)) {
+            callee = "(recursion != null ? recursion : " + callee + ")";
+        }
+        return "Operations.call(interpreter, " + callee + ", " + arguments(expr.arguments) + ", " + expr.line + ")";
+    }
+
+    @Override
+    public String visitGetExpr(Expr.Get expr) {
+        return "Operations.get(" + evaluate(expr.object) + ", " + quote(expr.name) + ", " + expr.line + ")";
+    }
+
+    @Override
+    public String visitGroupingExpr(Expr.Grouping expr) {
+        return evaluate(expr.expression);
+    }
+
+    @Override
+    public String visitIncrementExpr(Expr.Increment expr) {
+        String step = constant(expr.step);
+        Local local = expr.depth == Resolver.GLOBAL ? null : lookUp(expr.name);
+        if (local == null) {
+            return "Operations.incrementGlobal(interpreter, " + quote(expr.name) + ", TokenType." + expr.operator
+                + ", " + step + ", " + expr.line + ")";
+        }
+        return "(" + local.read() + " = Operations.increment(" + local.read() + ", TokenType." + expr.operator + ", "
+            + step + ", " + expr.line + "))";
+    }
+
+    @Override
+    public String visitInvariantExpr(Expr.Invariant expr) {
+        // the JIT hoists what is worth hoisting
+        return evaluate(expr.expression);
+    }
+
+    @Override
+    public String visitLiteralExpr(Expr.Literal expr) {
+        return constant(expr.value);
+    }
+
+    @Override
+    public String visitLogicalExpr(Expr.Logical expr) {
+        String temporary = "t" + body.temporaries++;
+        String left = evaluate(expr.left);
+        String right = evaluate(expr.right);
+        String test = "Operations.isTruthy(" + temporary + " = " + left + ")";
+        if (expr.operator == TokenType.AND) {
+            test = "!" + test;
+        }
+        return "(" + test + " ? " + temporary + " : " + right + ")";
+    }
+
+    @Override
+    public String visitSetExpr(Expr.Set expr) {
+        String object = "Operations.instance(" + evaluate(expr.object) + ", " + expr.line + ")";
+        return "Operations.set(" + object + ", " + quote(expr.name) + ", " + evaluate(expr.value) + ")";
+    }
+
+    @Override
+    public String visitSpawnExpr(Expr.Spawn expr) {
+        String callee = evaluate(expr.call.callee);
+        return "Operations.spawn(interpreter, " + callee + ", " + arguments(expr.call.arguments) + ", "
+            + expr.call.line + ")";
+    }
+
+    @Override
+    public String visitSuperExpr(Expr.Super expr) {
+        String klass = superclass == null ? global("super", expr.line) : superclass;
+        String object = self == null ? global("this", expr.line) : self;
+        return "Operations.superMethod(" + klass + ", " + object + ", " + quote(expr.method) + ", " + expr.line + ")";
+    }
+
+    @Override
+    public String visitThisExpr(Expr.This expr) {
+        return self == null ? global("this", expr.line) : self;
+    }
+
+    @Override
+    public String visitUnaryExpr(Expr.Unary expr) {
+        String right = evaluate(expr.right);
+        if (expr.operator == TokenType.BANG) {
+            return "Operations.not(" + right + ")";
+        }
+        return "Operations.negate(" + right + ", " + expr.line + ")";
+    }
+
+    @Override
+    public String visitVariableExpr(Expr.Variable expr) {
+        Local local = expr.depth == Resolver.GLOBAL ? null : lookUp(expr.name);
+        return local == null ? global(expr.name, expr.line) : local.read();
+    }
+}
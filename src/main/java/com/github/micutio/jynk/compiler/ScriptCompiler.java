@@ -0,0 +1,210 @@
+package com.github.micutio.jynk.compiler;
+
+import com.github.micutio.jynk.CompiledScript;
+import com.github.micutio.jynk.Script;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles scripts ahead of time into JVM classes that implement `CompiledScript`.
+ * The script is translated into Java source code by `JavaGenerator`, which the Java compiler of the running JDK
+ * compiles in memory. The classes can be loaded right away or written into an executable jar, together with the
+ * classes of jynk that they need at runtime.
+ */
+public final class ScriptCompiler {
+    // the runtime is all of jynk but the compiler itself
+    private static final String RUNTIME_PACKAGE = "com/github/micutio/jynk/";
+    private static final List<String> COMPILER_ONLY = List.of(RUNTIME_PACKAGE + "compiler/", RUNTIME_PACKAGE + "Jynkc");
+
+    private ScriptCompiler() {}
+
+    /**
+     * @param script a script without errors
+     * @param className name of the main class, in the unnamed package
+     * @return the bytecode of the main class and its nested classes, by binary class name
+     * @throws IllegalStateException if there is no Java compiler or it rejects the generated code
+     */
+    public static Map<String, byte[]> compile(Script script, String className) {
+        if (script.hasErrors()) {
+            throw new IllegalStateException("Cannot compile a script with compile errors.");
+        }
+        if (!SourceVersion.isName(className) || className.contains(".")) {
+            throw new IllegalArgumentException("Not a valid class name: " + className);
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new IllegalStateException("Compiling scripts needs a JDK, this runtime has no Java compiler.");
+        }
+
+        String source = JavaGenerator.generate(script.statements(), className);
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> output = new TreeMap<>();
+        StandardJavaFileManager standard = javac.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        JavaFileManager files = new ForwardingJavaFileManager<>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind,
+                                                       FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("memory:///" + name + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        output.put(name, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+
+        List<String> options = List.of("-classpath", runtimeLocation().toString(), "-proc:none", "-g:source,lines");
+        boolean compiled = javac.getTask(null, files, diagnostics, options, null, List.of(file)).call();
+        if (!compiled) {
+            StringBuilder message = new StringBuilder("Generated code does not compile:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics()) {
+                message.append("\n").append(diagnostic);
+            }
+            throw new IllegalStateException(message.toString());
+        }
+
+        Map<String, byte[]> classes = new TreeMap<>();
+        output.forEach((name, bytes) -> classes.put(name, bytes.toByteArray()));
+        return classes;
+    }
+
+    /**
+     * Compile the script and load it into this JVM.
+     */
+    public static CompiledScript load(Script script, String className) {
+        Map<String, byte[]> classes = compile(script, className);
+        ClassLoader loader = new ClassLoader(CompiledScript.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        try {
+            return (CompiledScript) loader.loadClass(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load compiled script: " + e, e);
+        }
+    }
+
+    /**
+     * Write an executable jar with the compiled classes and the runtime.
+     * @param classes the result of `compile`
+     * @param mainClass the class name given to `compile`
+     */
+    public static void writeJar(Map<String, byte[]> classes, String mainClass, Path jar) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            for (Map.Entry<String, byte[]> entry: classes.entrySet()) {
+                out.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+            copyRuntime(out);
+        }
+    }
+
+    private static Path runtimeLocation() {
+        try {
+            return Path.of(CompiledScript.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot locate the classes of jynk.", e);
+        }
+    }
+
+    private static boolean isRuntime(String entry) {
+        if (!entry.startsWith(RUNTIME_PACKAGE) || !entry.endsWith(".class")) {
+            return false;
+        }
+        for (String prefix: COMPILER_ONLY) {
+            if (entry.startsWith(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the classes of jynk from the jar or class directory they were loaded from.
+     */
+    private static void copyRuntime(JarOutputStream out) throws IOException {
+        Path location = runtimeLocation();
+        if (Files.isDirectory(location)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(location)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+            for (Path file: files) {
+                String name = location.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                if (isRuntime(name)) {
+                    out.putNextEntry(new JarEntry(name));
+                    out.write(Files.readAllBytes(file));
+                    out.closeEntry();
+                }
+            }
+            return;
+        }
+
+        try (JarFile jar = new JarFile(location.toFile())) {
+            List<JarEntry> entries = new ArrayList<>();
+            for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+                JarEntry entry = e.nextElement();
+                if (isRuntime(entry.getName())) {
+                    entries.add(entry);
+                }
+            }
+            for (JarEntry entry: entries) {
+                out.putNextEntry(new JarEntry(entry.getName()));
+                try (InputStream in = jar.getInputStream(entry)) {
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.micutio.jynk.interpreter;
+
+/**
+ * Bulk operations on arrays of doubles. Callers make sure that arrays passed together have the same length.
+ * Reductions may add up the elements in a different order than a plain loop, which can change the last bits of the
+ * result.
+ */
+interface ArrayKernels {
+    /**
+     * The fastest implementation available: SIMD through the Vector API if the `jdk.incubator.vector` module has been
+     * added to the JVM, e.g. with `--add-modules jdk.incubator.vector`, plain loops otherwise. Setting the system
+     * property `jynk.vector` to `false` forces plain loops.
+     */
+    ArrayKernels INSTANCE = select();
+
+    void add(double[] a, double[] b, double[] result);
+
+    void scale(double[] a, double factor, double[] result);
+
+    double dot(double[] a, double[] b);
+
+    double sum(double[] a);
+
+    double min(double[] a);
+
+    double max(double[] a);
+
+    private static ArrayKernels select() {
+        boolean vector = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !"false".equals(System.getProperty("jynk.vector"));
+        if (vector) {
+            try {
+                return new VectorKernels();
+            } catch (LinkageError e) {
+                // fall through to plain loops
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import com.github.micutio.jynk.parsing.Environment;
+
+/**
+ * Native functions to work with arrays of numbers:
+ * - `array(length)` creates an array of zeros,
+ * - `add(a, b)` and `scale(array, factor)` return a new array with the element-wise sum or product,
+ * - `dot(a, b)`, `sum(array)`, `min(array)` and `max(array)` reduce arrays to a number.
+ * Elements are read and written with the natives in `CollectionNatives`.
+ * Bulk operations run in Java, see `ArrayKernels`, so they are much faster than loops over `get` in a script.
+ * Every element of a new array counts as an allocated value for the execution budget.
+ */
+final class ArrayNatives {
+    static final int MAX_LENGTH = 1 << 26;
+
+    private ArrayNatives() {}
+
+    static void define(Environment globals) {
+        globals.define("array", new NativeFunction(1, (interpreter, arguments) -> {
+            return newArray(interpreter, length(arguments.get(0)));
+        }));
+
+        globals.define("add", new NativeFunction(2, (interpreter, arguments) -> {
+            NumArray a = array(arguments.get(0));
+            NumArray b = sameLength(a, arguments.get(1));
+            NumArray result = newArray(interpreter, a.values.length);
+            ArrayKernels.INSTANCE.add(a.values, b.values, result.values);
+            return result;
+        }));
+
+        globals.define("scale", new NativeFunction(2, (interpreter, arguments) -> {
+            NumArray array = array(arguments.get(0));
+            if (!Numbers.isNumber(arguments.get(1))) {
+                throw new RuntimeError(null, "Scale factor must be a number.");
+            }
+            NumArray result = newArray(interpreter, array.values.length);
+            ArrayKernels.INSTANCE.scale(array.values, Numbers.toDouble(arguments.get(1)), result.values);
+            return result;
+        }));
+
+        globals.define("dot", new NativeFunction(2, (interpreter, arguments) -> {
+            NumArray a = array(arguments.get(0));
+            return ArrayKernels.INSTANCE.dot(a.values, sameLength(a, arguments.get(1)).values);
+        }));
+
+        globals.define("sum", new NativeFunction(1, (interpreter, arguments) -> {
+            return ArrayKernels.INSTANCE.sum(array(arguments.get(0)).values);
+        }));
+
+        globals.define("min", new NativeFunction(1, (interpreter, arguments) -> {
+            return ArrayKernels.INSTANCE.min(nonEmpty(arguments.get(0)).values);
+        }));
+
+        globals.define("max", new NativeFunction(1, (interpreter, arguments) -> {
+            return ArrayKernels.INSTANCE.max(nonEmpty(arguments.get(0)).values);
+        }));
+    }
+
+    private static NumArray newArray(Interpreter interpreter, int length) {
+        // checks the budget before the allocation rather than at the next polling point
+        interpreter.allocate(length);
+        try {
+            return new NumArray(length);
+        } catch (OutOfMemoryError error) {
+            throw new RuntimeError(null, "Not enough memory for an array of " + length + " elements.");
+        }
+    }
+
+    private static NumArray array(Object value) {
+        if (!(value instanceof NumArray)) {
+            throw new RuntimeError(null, "Operand must be an array.");
+        }
+        return (NumArray) value;
+    }
+
+    private static NumArray sameLength(NumArray a, Object value) {
+        NumArray b = array(value);
+        if (a.values.length != b.values.length) {
+            throw new RuntimeError(null, "Arrays must have the same length.");
+        }
+        return b;
+    }
+
+    private static NumArray nonEmpty(Object value) {
+        NumArray array = array(value);
+        if (array.values.length == 0) {
+            throw new RuntimeError(null, "Array must not be empty.");
+        }
+        return array;
+    }
+
+    private static int length(Object value) {
+        if (!Numbers.isInteger(value) || Numbers.toDouble(value) < 0) {
+            throw new RuntimeError(null, "Array length must be a non-negative integer.");
+        }
+        if (Numbers.toDouble(value) > MAX_LENGTH) {
+            throw new RuntimeError(null, "Array length must be at most " + MAX_LENGTH + ".");
+        }
+        return (int) Numbers.toDouble(value);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.BudgetExceededError;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How much of its budget a single metered run of `Interpreter.interpret` has used, together with all tasks it spawned.
+ *
+ * Every interpreter counts its steps and allocations privately and only adds them here when it runs out of fuel, so
+ * each task may exceed the shared limits by at most one check interval before it notices. When the run ends, the
+ * tasks that are still running are cancelled: waiting tasks are interrupted, and running tasks fail at their next
+ * check.
+ */
+final class BudgetUsage {
+    final ExecutionBudget budget;
+    private final long deadline;
+    private final AtomicLong steps = new AtomicLong();
+    private final AtomicLong allocations = new AtomicLong();
+    private final Set<Thread> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean ended = false;
+
+    BudgetUsage(ExecutionBudget budget) {
+        this.budget = budget;
+        this.deadline = budget.limitsWallTime() ? System.nanoTime() + budget.maxWallTimeMillis * 1_000_000 : 0;
+    }
+
+    /**
+     * Add the steps and allocations of an interpreter and check all limits.
+     * @param line source line to report if the budget is exceeded, or 0 if there is none
+     * @return the number of steps left
+     * @throws BudgetExceededError if any limit is exceeded, or the run has ended
+     */
+    long use(int line, long newSteps, long newAllocations) {
+        if (ended) {
+            throw new BudgetExceededError(line, "Cancelled because the run that spawned the task has ended.");
+        }
+        long usedSteps = steps.addAndGet(newSteps);
+        if (usedSteps > budget.maxSteps) {
+            throw new BudgetExceededError(line, "Exceeded the budget of " + budget.maxSteps + " steps.");
+        }
+        if (allocations.addAndGet(newAllocations) > budget.maxAllocations) {
+            throw new BudgetExceededError(line,
+                "Exceeded the budget of " + budget.maxAllocations + " allocated values.");
+        }
+        if (budget.limitsWallTime() && System.nanoTime() - deadline > 0) {
+            throw new BudgetExceededError(line,
+                "Exceeded the wall time budget of " + budget.maxWallTimeMillis + " ms.");
+        }
+        return budget.maxSteps - usedSteps;
+    }
+
+    /**
+     * Register the current thread as a task of the run, until `leave` is called.
+     */
+    void enter() {
+        tasks.add(Thread.currentThread());
+        // the run may have ended before the task was registered, and then no one would interrupt it
+        if (ended) {
+            tasks.remove(Thread.currentThread());
+            throw new BudgetExceededError(0, "Cancelled because the run that spawned the task has ended.");
+        }
+    }
+
+    void leave() {
+        tasks.remove(Thread.currentThread());
+    }
+
+    /**
+     * End the run and cancel all of its tasks that are still running.
+     */
+    void end() {
+        ended = true;
+        for (Thread task: tasks) {
+            task.interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded first-in first-out queue of values, for tasks to communicate through.
+ * Sending waits while the channel is full, receiving waits while it is empty. A closed channel rejects new values,
+ * receiving from it returns the remaining values and then nil.
+ * Everything a task did before sending a value happens-before the receiving task gets the value.
+ * The buffer starts small and grows up to the capacity as values pile up, so a large capacity costs nothing until it
+ * is used.
+ */
+class Channel {
+    static final int MAX_CAPACITY = 1 << 24;
+    private static final int INITIAL_BUFFER = 16;
+
+    private final int capacity;
+    private Object[] buffer;
+    private int head = 0;
+    private int count = 0;
+    private boolean closed = false;
+
+    // a lock rather than `synchronized`, so that waiting virtual threads release their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    Channel(int capacity) {
+        this.capacity = capacity;
+        this.buffer = new Object[Math.min(capacity, INITIAL_BUFFER)];
+    }
+
+    void send(Object value) {
+        lock.lock();
+        try {
+            while (count == capacity && !closed) {
+                notFull.await();
+            }
+            if (closed) {
+                throw new RuntimeError(null, "Cannot send to a closed channel.");
+            }
+            if (count == buffer.length) {
+                grow();
+            }
+
+            buffer[(head + count) % buffer.length] = value;
+            count += 1;
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeError(null, "Interrupted while sending to a channel.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Object receive() {
+        lock.lock();
+        try {
+            while (count == 0 && !closed) {
+                notEmpty.await();
+            }
+            if (count == 0) {
+                return null;
+            }
+
+            Object value = buffer[head];
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            count -= 1;
+            notFull.signal();
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeError(null, "Interrupted while receiving from a channel.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void grow() {
+        Object[] grown = new Object[(int) Math.min((long) buffer.length * 2, capacity)];
+        for (int i = 0; i < count; i++) {
+            grown[i] = buffer[(head + i) % buffer.length];
+        }
+        buffer = grown;
+        head = 0;
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<channel>";
+    }
+}
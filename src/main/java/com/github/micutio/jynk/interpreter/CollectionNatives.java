@@ -0,0 +1,102 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import com.github.micutio.jynk.parsing.Environment;
+
+/**
+ * Native functions to read and write arrays and maps, and to work with maps:
+ * - `get(collection, key)` returns an element of an array, or the value of a key in a map, nil if it has none,
+ * - `set(collection, key, value)` replaces an element of an array, or a value in a map, and returns the value,
+ * - `length(collection)` returns the number of elements of an array or entries of a map,
+ * - `map()` creates an empty map,
+ * - `has(map, key)` and `remove(map, key)` check for and remove a key, `remove` returns whether it was there,
+ * - `key(map, index)` returns the keys in the order they were added, for `index` from 0 to `length(map) - 1`.
+ */
+final class CollectionNatives {
+    private CollectionNatives() {}
+
+    static void define(Environment globals) {
+        globals.define("get", new NativeFunction(2, (interpreter, arguments) -> {
+            Object collection = arguments.get(0);
+            if (collection instanceof YnkMap) {
+                return ((YnkMap) collection).get(key(arguments.get(1)));
+            }
+            NumArray array = array(collection);
+            return array.values[index(arguments.get(1), array.values.length)];
+        }));
+
+        globals.define("set", new NativeFunction(3, (interpreter, arguments) -> {
+            Object collection = arguments.get(0);
+            Object value = arguments.get(2);
+            if (collection instanceof YnkMap) {
+                ((YnkMap) collection).put(key(arguments.get(1)), value);
+                return value;
+            }
+
+            NumArray array = array(collection);
+            int index = index(arguments.get(1), array.values.length);
+            if (!Numbers.isNumber(value)) {
+                throw new RuntimeError(null, "Array elements must be numbers.");
+            }
+            array.values[index] = Numbers.toDouble(value);
+            return value;
+        }));
+
+        globals.define("length", new NativeFunction(1, (interpreter, arguments) -> {
+            Object collection = arguments.get(0);
+            if (collection instanceof YnkMap) {
+                return Numbers.of(((YnkMap) collection).size());
+            }
+            return Numbers.of(array(collection).values.length);
+        }));
+
+        globals.define("map", new NativeFunction(0, (interpreter, arguments) -> {
+            return new YnkMap();
+        }));
+
+        globals.define("has", new NativeFunction(2, (interpreter, arguments) -> {
+            return map(arguments.get(0)).containsKey(key(arguments.get(1)));
+        }));
+
+        globals.define("remove", new NativeFunction(2, (interpreter, arguments) -> {
+            return map(arguments.get(0)).remove(key(arguments.get(1)));
+        }));
+
+        globals.define("key", new NativeFunction(2, (interpreter, arguments) -> {
+            YnkMap map = map(arguments.get(0));
+            return map.keyAt(index(arguments.get(1), map.size()));
+        }));
+    }
+
+    private static NumArray array(Object value) {
+        if (!(value instanceof NumArray)) {
+            throw new RuntimeError(null, "Operand must be an array or a map.");
+        }
+        return (NumArray) value;
+    }
+
+    private static YnkMap map(Object value) {
+        if (!(value instanceof YnkMap)) {
+            throw new RuntimeError(null, "Operand must be a map.");
+        }
+        return (YnkMap) value;
+    }
+
+    private static Object key(Object value) {
+        if (value == null) {
+            throw new RuntimeError(null, "Map keys must not be nil.");
+        }
+        return value;
+    }
+
+    private static int index(Object value, int length) {
+        if (!Numbers.isInteger(value)) {
+            throw new RuntimeError(null, "Index must be an integer.");
+        }
+        double index = Numbers.toDouble(value);
+        if (index < 0 || index >= length) {
+            throw new RuntimeError(null, "Index out of bounds.");
+        }
+        return (int) index;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class compiled by `jynkc`. Like a `YnkClass`, calling it creates an instance and runs its `init` method.
+ */
+public final class CompiledClass implements YnkCallable {
+    private final String name;
+    final CompiledClass superclass;
+    private final Map<String, CompiledMethod> methods = new HashMap<>();
+    private final CompiledMethod initializer;
+
+    /**
+     * @param superclass the superclass or `null` if there is none
+     */
+    public CompiledClass(String name, CompiledClass superclass, CompiledMethod[] methods) {
+        this.name = name;
+        this.superclass = superclass;
+        for (CompiledMethod method: methods) {
+            this.methods.put(method.name, method);
+        }
+        this.initializer = findMethod("init");
+    }
+
+    /**
+     * @return the method of this class or the nearest superclass that has it, or `null` if there is none
+     */
+    CompiledMethod findMethod(String name) {
+        for (CompiledClass klass = this; klass != null; klass = klass.superclass) {
+            CompiledMethod method = klass.methods.get(name);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int arity() {
+        return initializer == null ? 0 : initializer.arity;
+    }
+
+    CompiledInstance instantiate(Interpreter interpreter, Object[] arguments) {
+        CompiledInstance instance = new CompiledInstance(this);
+        if (initializer != null) {
+            initializer.invoke(interpreter, instance, arguments);
+        }
+        return instance;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return instantiate(interpreter, arguments.toArray());
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.List;
+
+/**
+ * A function compiled to Java by `jynkc`, see `ScriptCompiler`. The compiled body receives its arguments as an array
+ * and returns its result, variables it captured are fields of the generated subclass.
+ */
+public abstract class CompiledFunction implements YnkCallable, Cloneable {
+    private final String name;
+    final int arity;
+    // why the function cannot be memoized, determined by `PurityAnalysis` when it was compiled, `null` if it is pure
+    final String impurity;
+    // what the calls of the function of itself call, if not the function its name refers to, see `recursingInto`
+    protected YnkCallable recursion = null;
+
+    protected CompiledFunction(String name, int arity, String impurity) {
+        this.name = name;
+        this.arity = arity;
+        this.impurity = impurity;
+    }
+
+    /**
+     * Run the body of the function.
+     * @param interpreter the interpreter of the running task
+     * @param arguments as many arguments as the function has parameters
+     * @return the returned value, or `null` for nil
+     */
+    public abstract Object invoke(Interpreter interpreter, Object[] arguments);
+
+    /**
+     * @param self the callable that the calls of this pure function of itself call instead, see `MemoizedFunction`
+     * @return a copy of the function
+     */
+    CompiledFunction recursingInto(YnkCallable self) {
+        try {
+            CompiledFunction copy = (CompiledFunction) clone();
+            copy.recursion = self;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return invoke(interpreter, arguments.toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + name + ">";
+    }
+}
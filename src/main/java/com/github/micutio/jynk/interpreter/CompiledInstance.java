@@ -0,0 +1,21 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An instance of a `CompiledClass`. Like a `YnkInstance` it is not synchronized.
+ */
+public final class CompiledInstance {
+    final CompiledClass klass;
+    final Map<String, Object> fields = new HashMap<>();
+
+    CompiledInstance(CompiledClass klass) {
+        this.klass = klass;
+    }
+
+    @Override
+    public String toString() {
+        return klass + " instance";
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.micutio.jynk.interpreter;
+
+/**
+ * A method of a class compiled by `jynkc`. The compiled body receives the instance it is called on as `this`.
+ */
+public abstract class CompiledMethod {
+    final String name;
+    final int arity;
+
+    protected CompiledMethod(String name, int arity) {
+        this.name = name;
+        this.arity = arity;
+    }
+
+    /**
+     * Run the body of the method.
+     * @param self the instance the method is called on
+     * @param arguments as many arguments as the method has parameters
+     * @return the returned value, or `null` for nil
+     */
+    public abstract Object invoke(Interpreter interpreter, CompiledInstance self, Object[] arguments);
+
+    /**
+     * @return the method as a function bound to the instance; initializers return the instance they initialized
+     */
+    CompiledFunction bind(CompiledInstance self) {
+        boolean isInitializer = name.equals("init");
+        CompiledMethod method = this;
+        return new CompiledFunction(name, arity, "it is a method") {
+            @Override
+            public Object invoke(Interpreter interpreter, Object[] arguments) {
+                Object value = method.invoke(interpreter, self, arguments);
+                return isInitializer ? self : value;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import com.github.micutio.jynk.parsing.Environment;
+
+/**
+ * Native functions to work with tasks and channels:
+ * - `channel(capacity)` creates a channel that buffers up to `capacity` values, at most `Channel.MAX_CAPACITY`,
+ * - `send(channel, value)` and `receive(channel)` pass values through a channel,
+ * - `close(channel)` lets receivers know that no more values will come,
+ * - `join(task)` waits for a task created by `spawn` to finish.
+ */
+final class ConcurrencyNatives {
+    private ConcurrencyNatives() {}
+
+    static void define(Environment globals) {
+        globals.define("channel", new NativeFunction(1, (interpreter, arguments) -> {
+            Object capacity = arguments.get(0);
+            if (!Numbers.isInteger(capacity) || Numbers.toDouble(capacity) < 1) {
+                throw new RuntimeError(null, "Channel capacity must be a positive integer.");
+            }
+            if (Numbers.toDouble(capacity) > Channel.MAX_CAPACITY) {
+                throw new RuntimeError(null, "Channel capacity must be at most " + Channel.MAX_CAPACITY + ".");
+            }
+            return new Channel((int) Numbers.toDouble(capacity));
+        }));
+
+        globals.define("send", new NativeFunction(2, (interpreter, arguments) -> {
+            channel(arguments.get(0)).send(arguments.get(1));
+            return null;
+        }));
+
+        globals.define("receive", new NativeFunction(1, (interpreter, arguments) -> {
+            return channel(arguments.get(0)).receive();
+        }));
+
+        globals.define("close", new NativeFunction(1, (interpreter, arguments) -> {
+            channel(arguments.get(0)).close();
+            return null;
+        }));
+
+        globals.define("join", new NativeFunction(1, (interpreter, arguments) -> {
+            if (!(arguments.get(0) instanceof YnkTask)) {
+                throw new RuntimeError(null, "Can only join tasks.");
+            }
+            return ((YnkTask) arguments.get(0)).join();
+        }));
+    }
+
+    private static Channel channel(Object value) {
+        if (!(value instanceof Channel)) {
+            throw new RuntimeError(null, "Operand must be a channel.");
+        }
+        return (Channel) value;
+    }
+}
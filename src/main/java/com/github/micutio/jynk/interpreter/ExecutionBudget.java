@@ -0,0 +1,36 @@
+package com.github.micutio.jynk.interpreter;
+
+/**
+ * Limits for a single run of the interpreter, see `Interpreter.setBudget`.
+ * Steps are counted at loop iterations, calls and block entries. Allocated values are environments, argument lists,
+ * concatenated strings and array elements. Any limit can be `UNLIMITED`. Wall time limits above
+ * `MAX_WALL_TIME_MILLIS`, about 146 years, cannot be measured with `System.nanoTime()` and count as unlimited.
+ *
+ * All limits are only checked at those steps, once every 1024 of them, and when a native function allocates in bulk.
+ * So a script that is blocked in a native function, like `sleep`, `receive` or `join`, can overrun its wall time limit
+ * until the native function returns.
+ */
+public class ExecutionBudget {
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    public static final long MAX_WALL_TIME_MILLIS = Long.MAX_VALUE / 2 / 1_000_000;
+
+    public final long maxSteps;
+    public final long maxWallTimeMillis;
+    public final long maxAllocations;
+
+    public ExecutionBudget(long maxSteps, long maxWallTimeMillis, long maxAllocations) {
+        if (maxSteps < 0 || maxWallTimeMillis < 0 || maxAllocations < 0) {
+            throw new IllegalArgumentException("Budget limits must not be negative.");
+        }
+        this.maxSteps = maxSteps;
+        this.maxWallTimeMillis = maxWallTimeMillis;
+        this.maxAllocations = maxAllocations;
+    }
+
+    /**
+     * @return whether the wall time is limited, so that a deadline can be computed without overflow
+     */
+    boolean limitsWallTime() {
+        return maxWallTimeMillis <= MAX_WALL_TIME_MILLIS;
+    }
+}
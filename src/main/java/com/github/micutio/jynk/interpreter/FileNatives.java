@@ -0,0 +1,175 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import com.github.micutio.jynk.parsing.Environment;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Native functions to stream through large files:
+ * - `lines(path)` opens a file for reading line by line, see `LineReader`,
+ * - `nextLine(reader)` advances to the next line and returns whether there is one,
+ * - `line(reader)` returns the current line as a string,
+ * - `lineContains(reader, text)` checks the current line for a text without creating a string,
+ * - `mapFile(path)` maps a file into memory, see `MappedFile`,
+ * - `fileSize(file)`, `readAt(file, offset, length)` and `indexOf(file, text, from)` read a mapped file by byte
+ *   offsets,
+ * - `createFile(path)` opens a file for buffered writing, see `FileOutput`,
+ * - `write(file, value)` writes a value as `print` shows it, but without a line break, `writeLine(file, value)` with
+ *   one,
+ * - `closeFile(file)` closes any of these files, which flushes files that are written to.
+ * Files are read and written as UTF-8. Files that are written to and still open are flushed, but not closed, when the
+ * run of the script ends.
+ */
+final class FileNatives {
+    private FileNatives() {}
+
+    static void define(Environment globals) {
+        globals.define("lines", new NativeFunction(1, (interpreter, arguments) -> {
+            Path path = path(arguments.get(0));
+            try {
+                return new LineReader(path);
+            } catch (IOException e) {
+                throw failure("open", path, e);
+            }
+        }));
+
+        globals.define("nextLine", new NativeFunction(1, (interpreter, arguments) -> {
+            try {
+                return reader(arguments.get(0)).next();
+            } catch (IOException e) {
+                throw new RuntimeError(null, "Could not read the next line: " + e.getMessage());
+            }
+        }));
+
+        globals.define("line", new NativeFunction(1, (interpreter, arguments) -> {
+            return reader(arguments.get(0)).line();
+        }));
+
+        globals.define("lineContains", new NativeFunction(2, (interpreter, arguments) -> {
+            return reader(arguments.get(0)).contains(search(arguments.get(1)));
+        }));
+
+        globals.define("mapFile", new NativeFunction(1, (interpreter, arguments) -> {
+            Path path = path(arguments.get(0));
+            try {
+                return new MappedFile(path);
+            } catch (IOException e) {
+                throw failure("map", path, e);
+            }
+        }));
+
+        globals.define("fileSize", new NativeFunction(1, (interpreter, arguments) -> {
+            return Numbers.of(mapped(arguments.get(0)).size);
+        }));
+
+        globals.define("readAt", new NativeFunction(3, (interpreter, arguments) -> {
+            MappedFile file = mapped(arguments.get(0));
+            long offset = integer(arguments.get(1), "Offset");
+            long length = integer(arguments.get(2), "Length");
+            if (length > Integer.MAX_VALUE - 8) {
+                throw new RuntimeError(null, "Cannot read more than 2 GB at once.");
+            }
+            return file.read(offset, (int) length);
+        }));
+
+        globals.define("indexOf", new NativeFunction(3, (interpreter, arguments) -> {
+            MappedFile file = mapped(arguments.get(0));
+            byte[] text = search(arguments.get(1)).getBytes(StandardCharsets.UTF_8);
+            return Numbers.of(file.indexOf(text, integer(arguments.get(2), "Offset")));
+        }));
+
+        globals.define("createFile", new NativeFunction(1, (interpreter, arguments) -> {
+            Path path = path(arguments.get(0));
+            try {
+                FileOutput output = new FileOutput(path);
+                interpreter.outputs.add(output);
+                return output;
+            } catch (IOException e) {
+                throw failure("create", path, e);
+            }
+        }));
+
+        globals.define("write", new NativeFunction(2, (interpreter, arguments) -> {
+            write(arguments.get(0), Interpreter.stringify(arguments.get(1)));
+            return null;
+        }));
+
+        // strings in scripts cannot contain escaped line breaks
+        globals.define("writeLine", new NativeFunction(2, (interpreter, arguments) -> {
+            write(arguments.get(0), Interpreter.stringify(arguments.get(1)));
+            write(arguments.get(0), "\n");
+            return null;
+        }));
+
+        globals.define("closeFile", new NativeFunction(1, (interpreter, arguments) -> {
+            Object file = arguments.get(0);
+            try {
+                if (file instanceof LineReader) {
+                    ((LineReader) file).close();
+                } else if (file instanceof MappedFile) {
+                    ((MappedFile) file).close();
+                } else if (file instanceof FileOutput) {
+                    interpreter.outputs.remove(file);
+                    ((FileOutput) file).close();
+                } else {
+                    throw new RuntimeError(null, "Operand must be a file.");
+                }
+            } catch (IOException e) {
+                throw new RuntimeError(null, "Could not close file: " + e.getMessage());
+            }
+            return null;
+        }));
+    }
+
+    private static void write(Object file, String text) {
+        if (!(file instanceof FileOutput)) {
+            throw new RuntimeError(null, "Can only write to a file opened with 'createFile'.");
+        }
+        try {
+            ((FileOutput) file).write(text);
+        } catch (IOException e) {
+            throw new RuntimeError(null, "Could not write to file: " + e.getMessage());
+        }
+    }
+
+    private static Path path(Object value) {
+        if (!(value instanceof String)) {
+            throw new RuntimeError(null, "File path must be a string.");
+        }
+        return Path.of((String) value);
+    }
+
+    private static String search(Object value) {
+        if (!(value instanceof String)) {
+            throw new RuntimeError(null, "Text to search for must be a string.");
+        }
+        return (String) value;
+    }
+
+    private static long integer(Object value, String what) {
+        if (!Numbers.isInteger(value)) {
+            throw new RuntimeError(null, what + " must be an integer.");
+        }
+        return (long) Numbers.toDouble(value);
+    }
+
+    private static LineReader reader(Object value) {
+        if (!(value instanceof LineReader)) {
+            throw new RuntimeError(null, "Operand must be a file opened with 'lines'.");
+        }
+        return (LineReader) value;
+    }
+
+    private static MappedFile mapped(Object value) {
+        if (!(value instanceof MappedFile)) {
+            throw new RuntimeError(null, "Operand must be a file opened with 'mapFile'.");
+        }
+        return (MappedFile) value;
+    }
+
+    private static RuntimeError failure(String action, Path path, IOException e) {
+        return new RuntimeError(null, "Could not " + action + " file '" + path + "': " + e.getMessage());
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file that text is written to through a buffer. Text is encoded as UTF-8 straight into a direct buffer, which is
+ * written to the file whenever it is full, when the file is closed and when the run of the interpreter that created
+ * the file ends, see `Interpreter.flushFiles`.
+ */
+class FileOutput {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * Create the file, or truncate it if it exists.
+     */
+    FileOutput(Path path) throws IOException {
+        channel = FileChannel.open(path,
+            StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void write(String text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+            drain();
+        }
+        while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    void flush() throws IOException {
+        if (channel.isOpen()) {
+            drain();
+        }
+    }
+
+    void close() throws IOException {
+        if (channel.isOpen()) {
+            drain();
+            channel.close();
+        }
+    }
+}
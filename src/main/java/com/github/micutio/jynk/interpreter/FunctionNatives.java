@@ -0,0 +1,45 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import com.github.micutio.jynk.parsing.Environment;
+
+/**
+ * Native functions that work with functions:
+ * - `memoize(function, capacity)` returns a version of a pure function that caches up to `capacity` results, see
+ *   `MemoizedFunction`. The memoized version of a recursive function also calls itself, whatever is assigned to the
+ *   name of the function. Functions that `PurityAnalysis` cannot prove pure are rejected with the reason.
+ * - `cacheStats(function)` returns a map of the hits, misses, evictions and size of the cache of a memoized function.
+ */
+final class FunctionNatives {
+    private FunctionNatives() {}
+
+    static void define(Environment globals) {
+        globals.define("memoize", new NativeFunction(2, (interpreter, arguments) -> {
+            Object function = arguments.get(0);
+            Object capacity = arguments.get(1);
+            String impurity;
+            if (function instanceof YnkFunction) {
+                impurity = ((YnkFunction) function).impurity();
+            } else if (function instanceof CompiledFunction) {
+                impurity = ((CompiledFunction) function).impurity;
+            } else {
+                throw new RuntimeError(null, "Can only memoize functions declared in a script.");
+            }
+            if (impurity != null) {
+                throw new RuntimeError(null, "Cannot memoize " + function + ", it is not pure: " + impurity + ".");
+            }
+            if (!Numbers.isInteger(capacity) || Numbers.toDouble(capacity) < 1) {
+                throw new RuntimeError(null, "Cache capacity must be a positive integer.");
+            }
+            return new MemoizedFunction((YnkCallable) function, (int) Math.min(Numbers.toDouble(capacity),
+                Integer.MAX_VALUE));
+        }));
+
+        globals.define("cacheStats", new NativeFunction(1, (interpreter, arguments) -> {
+            if (!(arguments.get(0) instanceof MemoizedFunction)) {
+                throw new RuntimeError(null, "Operand must be a memoized function.");
+            }
+            return ((MemoizedFunction) arguments.get(0)).stats();
+        }));
+    }
+}
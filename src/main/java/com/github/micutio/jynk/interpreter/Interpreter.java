@@ -1,57 +1,311 @@
 package com.github.micutio.jynk.interpreter;
 
+import com.github.micutio.jynk.BudgetExceededError;
 import com.github.micutio.jynk.RuntimeError;
-import com.github.micutio.jynk.Ynk;
+import com.github.micutio.jynk.RuntimeStats;
 import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.InlineCache;
 import com.github.micutio.jynk.ast.Stmt;
-import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.ast.ValueType;
+import com.github.micutio.jynk.lexing.StringTable;
 import com.github.micutio.jynk.lexing.TokenType;
 import com.github.micutio.jynk.parsing.Environment;
+import com.github.micutio.jynk.parsing.GlobalEnvironment;
+import com.github.micutio.jynk.parsing.Resolver;
 
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Post-order traversal. Evaluate all children first, before evaluating the expr/stmt.
  */
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
-    // private Environment environment = new Environment();
-    final Environment globals = new Environment();
-    private Environment environment = globals;
+    final GlobalEnvironment globals;
+    private Environment environment;
+
+    // cached values of the loop invariants of the innermost running loop, see `LoopOptimizer`
+    private static final Object UNCACHED = new Object();
+    private Object[] invariants = new Object[0];
+
+    // How the last statement completed. A `break` or `return` doesn't throw, it only sets the completion, which every
+    // block passes up by skipping its remaining statements, until the enclosing loop or call picks it up.
+    private static final int NORMAL = 0;
+    private static final int BREAK = 1;
+    private static final int RETURN = 2;
+    private int completion = NORMAL;
+    private Object returnValue = null;
+
+    // Execution budget, see `setBudget`. Every polling point only decrements `fuel` and takes the slow path through
+    // `meter()` once it runs out. Without a budget there is always fuel left, so polling costs next to nothing.
+    // Steps and allocations are counted here and added to the `usage` of the run, which tasks share, in `meter()`.
+    private static final long CHECK_INTERVAL = 1024;
+    private ExecutionBudget budget = null;
+    private BudgetUsage usage = null;
+    private long fuel = Long.MAX_VALUE;
+    private long refueled;
+    private long allocations;
+
+    final PrintStream out;
+    // files opened for writing by the script and its tasks that are not closed yet, see `flushFiles`
+    final Set<FileOutput> outputs;
+
+    // inline caches of property accesses can be switched off with `-Djynk.inlinecache=false`, to measure their gain
+    private static final boolean INLINE_CACHES = !"false".equals(System.getProperty("jynk.inlinecache"));
+    // key of the shapes of classes without superclass in the inline cache of a class declaration
+    private static final Object NO_SUPERCLASS = new Object();
+
+    // Ynk call stack for the profiler, `null` unless a profiler is attached
+    private ShadowStack shadow = null;
+
+    public Interpreter() {
+        this(System.out);
+    }
+
+    /**
+     * Create an interpreter with its own global scope.
+     * Interpreters hold the state of running scripts and must not be shared between threads.
+     * @param out stream that `print` statements write to
+     */
+    public Interpreter(PrintStream out) {
+        this.globals = new GlobalEnvironment();
+        this.environment = globals;
+        this.out = out;
+        this.outputs = ConcurrentHashMap.newKeySet();
 
-    Interpreter() {
         // Other possible native functions are:
         // - reading input from the user
-        // - working with files etc.
-        globals.define("clock", new YnkCallable() {
-            @Override
-            public int arity() {
-                return 0;
+        globals.define("clock", new NativeFunction(0, (interpreter, arguments) -> {
+            return (double)System.currentTimeMillis() / 1000.0;
+        }));
+
+        // blocks only the current thread, a virtual thread gives up its carrier while sleeping
+        globals.define("sleep", new NativeFunction(1, (interpreter, arguments) -> {
+            // `Thread.sleep` rejects negative durations, and NaN fails the comparison as well
+            if (!Numbers.isNumber(arguments.get(0)) || !(Numbers.toDouble(arguments.get(0)) >= 0)) {
+                throw new RuntimeError(null, "Sleep duration must be a non-negative number of milliseconds.");
             }
-
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return (double)System.currentTimeMillis() / 1000.0;
+            try {
+                Thread.sleep((long) Numbers.toDouble(arguments.get(0)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeError(null, "Interrupted while sleeping.");
             }
+            return null;
+        }));
+
+        ConcurrencyNatives.define(globals);
+        ArrayNatives.define(globals);
+        CollectionNatives.define(globals);
+        FileNatives.define(globals);
+        FunctionNatives.define(globals);
+    }
 
-            @Override
-            public String toString() {
-                return "<native fn>";
-            }
-        });
+    /**
+     * Create an interpreter for a task spawned by the given one.
+     *
+     * A task shares the global scope, output and budget of its parent, and is cancelled when the metered run that
+     * spawned it ends. It also shares the variables that the function it runs has captured, because they are captured
+     * by reference, not copied. Everything else, like the current scope and loop caches, is private to the task.
+     *
+     * The global scope is a `GlobalEnvironment`, so tasks may define, assign and read global variables concurrently.
+     * All other scopes are not synchronized: while a task runs, no other task may assign or define variables in a
+     * local scope that it uses, and tasks should exchange values through channels or globals instead. Arguments of a
+     * spawned call are evaluated before the task starts, so they are safely visible to it.
+     * @param parent the interpreter that spawns the task
+     */
+    Interpreter(Interpreter parent) {
+        this.globals = parent.globals;
+        this.environment = globals;
+        this.out = parent.out;
+        this.outputs = parent.outputs;
+        this.budget = parent.budget;
+        this.usage = parent.usage;
+        // checks the budget at the first polling point
+        this.fuel = usage == null ? Long.MAX_VALUE : 0;
+        this.refueled = 0;
+        if (parent.shadow != null) {
+            this.shadow = parent.shadow.profiler.track();
+        }
+    }
+
+    void profileWith(ShadowStack shadow) {
+        this.shadow = shadow;
+    }
+
+    /**
+     * Limit the steps, wall time and allocations that each subsequent call of `interpret` may use, together with all
+     * tasks it spawns. Exceeding any of them raises a `BudgetExceededError`. Tasks that still run when `interpret`
+     * returns are cancelled.
+     * @param budget the new budget or `null` to remove all limits
+     */
+    public void setBudget(ExecutionBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Define or redefine a global variable, e.g. to pass input to the next script that runs.
+     * @param value nil, a boolean, a string or a number as returned by `Numbers.of()`
+     */
+    public void define(String name, Object value) {
+        globals.define(name, value);
     }
 
+    /**
+     * Execute the given statements in the global scope of this interpreter. Afterwards, files that the script has
+     * written to and not closed are flushed, see `flushFiles`.
+     * @param statements the statements to execute
+     * @throws RuntimeError if execution fails, the global scope keeps all definitions made up to that point
+     */
     public void interpret(List<Stmt> statements) {
+        startMetering();
+        if (shadow != null) {
+            shadow.push("<script>");
+        }
         try {
             for (Stmt statement: statements) {
                 execute(statement);
             }
-        } catch (RuntimeError err) {
-            Ynk.runtimeError(err);
+        } finally {
+            if (shadow != null) {
+                shadow.pop();
+            }
+            if (usage != null) {
+                usage.end();
+            }
+            flushFiles();
+        }
+    }
+
+    /**
+     * Write out what the files that scripts opened with `createFile` and have not closed yet have buffered, so that
+     * nothing is lost if they are never closed. The files stay open for later runs.
+     * @throws RuntimeError if a file cannot be written
+     */
+    public void flushFiles() {
+        for (FileOutput output: outputs) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new RuntimeError(0, "Could not write to file: " + e.getMessage());
+            }
+        }
+    }
+
+    private void startMetering() {
+        allocations = 0;
+        if (budget == null) {
+            usage = null;
+            fuel = Long.MAX_VALUE;
+            return;
+        }
+
+        usage = new BudgetUsage(budget);
+        refueled = Math.min(CHECK_INTERVAL, budget.maxSteps);
+        fuel = refueled;
+    }
+
+    /**
+     * Count a step at a polling point: a loop iteration, call or block entry.
+     * @param line source line to report if the budget is exceeded, or 0 if there is none
+     */
+    private void poll(int line) {
+        if (--fuel < 0) {
+            meter(line);
+        }
+    }
+
+    /**
+     * Let the profiler know which line is being executed.
+     */
+    private void trace(int line) {
+        if (shadow != null) {
+            shadow.currentLine = line;
+        }
+    }
+
+    /**
+     * @param depth scopes skipped by a resolved variable access, only unresolved accesses walk the scope chain
+     */
+    private void countLookup(String name, int depth) {
+        if (RuntimeStats.ENABLED) {
+            // global and unresolved accesses may not find the variable at all
+            if (depth >= 0) {
+                RuntimeStats.lookup(depth);
+            } else {
+                RuntimeStats.lookup((depth == Resolver.GLOBAL ? globals : environment).depthOf(name));
+            }
+        }
+    }
+
+    private Object lookUp(String name, int depth, int line) {
+        countLookup(name, depth);
+        if (depth >= 0) {
+            return environment.getAt(depth, name);
+        }
+        if (depth == Resolver.GLOBAL) {
+            return globals.get(name, line);
+        }
+        return environment.get(name, line);
+    }
+
+    /**
+     * Create the scope that a function or the methods of a class are closed over.
+     * @param captures variables to capture as found by the `Resolver`, or `null` to keep the current scope chain
+     * @param superclass superclass that methods find as `super`, or `null`
+     */
+    Environment closure(List<Expr.Variable> captures, YnkClass superclass) {
+        if (captures == null) {
+            Environment scope = environment;
+            if (superclass != null) {
+                scope = new Environment(environment);
+                scope.define("super", superclass);
+            }
+            return scope;
+        }
+        if (captures.isEmpty() && superclass == null) {
+            return globals;
+        }
+
+        Environment scope = new Environment(globals);
+        for (Expr.Variable variable: captures) {
+            scope.capture(variable.name, environment, variable.depth);
+        }
+        if (superclass != null) {
+            scope.define("super", superclass);
         }
+        return scope;
     }
 
-    private String stringify(Object object) {
+    /**
+     * Count values that a native function is about to allocate in bulk, and check the budget right away, so that a
+     * large allocation fails before it takes the memory.
+     */
+    void allocate(long count) {
+        allocations += count;
+        if (usage != null) {
+            usage.use(0, 0, allocations);
+            allocations = 0;
+        }
+    }
+
+    private void meter(int line) {
+        if (usage == null) {
+            fuel = Long.MAX_VALUE;
+            return;
+        }
+
+        long remaining = usage.use(line, refueled + 1, allocations);
+        allocations = 0;
+        refueled = Math.min(CHECK_INTERVAL, remaining);
+        fuel = refueled;
+    }
+
+    static String stringify(Object object) {
         if (object == null)
             return "nil";
 
@@ -63,31 +317,56 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
             return text;
         }
+        if (object instanceof Long) {
+            return Numbers.toString((long) object);
+        }
 
         return object.toString();
     }
 
     @Override
     public Object visitBinaryExpr(Expr.Binary expr) {
+        trace(expr.line);
         Object left = evaluate(expr.left);
         Object right = evaluate(expr.right);
 
-        switch (expr.operator.type) {
-            case MINUS: checkNumberOperands(expr.operator, left, right); return (double) left - (double) right;
-            case SLASH: checkNumberOperands(expr.operator, left, right); return (double) left / (double) right;
-            case STAR: checkNumberOperands(expr.operator, left, right); return (double) left * (double) right;
+        // operands of a proven type need no checks, see `TypeInference`
+        if (expr.operands == ValueType.NUMBER) {
+            switch (expr.operator) {
+                case BANG_EQUAL: return !Numbers.equal(left, right);
+                case EQUAL_EQUAL: return Numbers.equal(left, right);
+                default: return Numbers.binary(expr.operator, left, right);
+            }
+        }
+        if (expr.operands == ValueType.STRING) {
+            switch (expr.operator) {
+                case BANG_EQUAL: return !left.equals(right);
+                case EQUAL_EQUAL: return left.equals(right);
+                default:
+                    allocations += 1;
+                    return StringTable.internComputed((String) left + (String) right);
+            }
+        }
+
+        switch (expr.operator) {
+            case MINUS:
+            case SLASH:
+            case STAR:
+            case GREATER:
+            case GREATER_EQUAL:
+            case LESS:
+            case LESS_EQUAL:
+                checkNumberOperands(expr.line, left, right);
+                return Numbers.binary(expr.operator, left, right);
             case PLUS:
-                if (left instanceof Double && right instanceof Double) {
-                    return (double) left + (double) right;
+                if (Numbers.isNumber(left) && Numbers.isNumber(right)) {
+                    return Numbers.binary(TokenType.PLUS, left, right);
                 }
                 if (left instanceof String && right instanceof String) {
-                    return (String) left + (String) right;
+                    allocations += 1;
+                    return StringTable.internComputed((String) left + (String) right);
                 }
-                throw new RuntimeError(expr.operator, "Operands must be two numbers or two strings.");
-            case GREATER: checkNumberOperands(expr.operator, left, right); return (double) left > (double) right;
-            case GREATER_EQUAL: checkNumberOperands(expr.operator, left, right); return (double) left >= (double) right;
-            case LESS: checkNumberOperands(expr.operator, left, right); return (double) left < (double) right;
-            case LESS_EQUAL: checkNumberOperands(expr.operator, left, right); return (double) left <= (double) right;
+                throw new RuntimeError(expr.line, "Operands must be two numbers or two strings.");
             case BANG_EQUAL: return !isEqual(left, right);
             case EQUAL_EQUAL: return isEqual(left, right);
         }
@@ -98,12 +377,12 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitCallExpr(Expr.Call expr) {
+        trace(expr.line);
         Object callee = evaluate(expr.callee);
 
-        List<Object> arguments = new ArrayList<>();
-        for (Expr argument: expr.arguments) {
-            arguments.add(evaluate(argument));
-        }
+        poll(expr.line);
+
+        List<Object> arguments = evaluateArguments(expr);
 
         // "This is another one of those subtle semantic choices. Since argument expressions may
         // have side effects, the order they are evaluated could be user visible. Even so, some
@@ -111,16 +390,108 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         // reorder them for efficiency, but means users may be unpleasantly surprised if arguments
         // aren’t evaluated in the order they expect."
 
+        return call(expr.line, checkCallable(expr.line, callee, arguments), arguments);
+    }
+
+    private List<Object> evaluateArguments(Expr.Call expr) {
+        List<Object> arguments = new ArrayList<>();
+        allocations += 1;
+        for (Expr argument: expr.arguments) {
+            arguments.add(evaluate(argument));
+        }
+        return arguments;
+    }
+
+    YnkCallable checkCallable(int line, Object callee, List<Object> arguments) {
         if (!(callee instanceof YnkCallable)) {
-            throw new RuntimeError(expr.paren, "CAn only call functions an classes.");
+            throw new RuntimeError(line, "CAn only call functions an classes.");
         }
 
         YnkCallable function = (YnkCallable) callee;
         if (arguments.size() != function.arity()) {
-            throw new RuntimeError(expr.paren, "Expected " + function.arity() + " arguments but got " + arguments.size() + ".");
+            throw new RuntimeError(line, "Expected " + function.arity() + " arguments but got " + arguments.size() + ".");
+        }
+        return function;
+    }
+
+    /**
+     * @return the name of the function on the profiler's stack, or `null` if it is not a function of the script
+     */
+    private static String frameOf(YnkCallable function) {
+        if (function instanceof MemoizedFunction) {
+            function = ((MemoizedFunction) function).function;
+        }
+        return function instanceof YnkFunction ? ((YnkFunction) function).name() : null;
+    }
+
+    Object call(int line, YnkCallable function, List<Object> arguments) {
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.call();
+        }
+        String frame = shadow == null ? null : frameOf(function);
+        boolean profiled = frame != null;
+        if (profiled) {
+            shadow.push(frame);
         }
 
-        return function.call(this, arguments);
+        try {
+            return function.call(this, arguments);
+        } catch (BudgetExceededError error) {
+            if (error.line() == 0) {
+                throw new BudgetExceededError(line, error.getMessage());
+            }
+            throw error;
+        } catch (RuntimeError error) {
+            // native functions don't know where they were called from
+            if (error.line() == 0) {
+                throw new RuntimeError(line, error.getMessage());
+            }
+            throw error;
+        } catch (StackOverflowError error) {
+            // reported at the innermost call, outer calls pass the runtime error on
+            throw new RuntimeError(line, "Stack overflow.");
+        } finally {
+            if (profiled) {
+                shadow.pop();
+            }
+        }
+    }
+
+    @Override
+    public Object visitGetExpr(Expr.Get expr) {
+        Object object = evaluate(expr.object);
+        trace(expr.line);
+        if (!(object instanceof YnkInstance)) {
+            throw new RuntimeError(expr.line, "Only instances have properties.");
+        }
+
+        YnkInstance instance = (YnkInstance) object;
+        InlineCache.Entry entry = expr.cache.lookup(instance.shape);
+        if (entry == null) {
+            entry = resolveGet(expr, instance.shape);
+        }
+
+        if (entry.slot >= 0) {
+            return instance.fields[entry.slot];
+        }
+        return instance.klass.method((Shape.Method) entry.target).bind(instance);
+    }
+
+    /**
+     * Find out where instances of the shape keep a property: in a field, which shadows any method of the same name,
+     * or in a method of their class.
+     */
+    private InlineCache.Entry resolveGet(Expr.Get expr, Shape shape) {
+        int slot = shape.slotOf(expr.name);
+        Shape.Method method = slot >= 0 ? null : shape.empty.findMethod(expr.name);
+        if (slot < 0 && method == null) {
+            throw new RuntimeError(expr.line, "Undefined property '" + expr.name + "'.");
+        }
+
+        if (INLINE_CACHES) {
+            expr.cache.add(shape, slot, method);
+        }
+        return new InlineCache.Entry(shape, slot, method);
     }
 
     @Override
@@ -128,6 +499,42 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return evaluate(expr.expression);
     }
 
+    @Override
+    public Object visitIncrementExpr(Expr.Increment expr) {
+        trace(expr.line);
+        // same result and errors as `name = name + step`, but with a single lookup of the scope
+        countLookup(expr.name, expr.depth);
+        Environment scope;
+        if (expr.depth >= 0) {
+            scope = environment.ancestor(expr.depth);
+        } else {
+            scope = (expr.depth == Resolver.GLOBAL ? globals : environment).scopeOf(expr.name, expr.line);
+        }
+        Object current = scope.getLocal(expr.name);
+        if (expr.operator == TokenType.PLUS) {
+            if (!Numbers.isNumber(current)) {
+                throw new RuntimeError(expr.line, "Operands must be two numbers or two strings.");
+            }
+        } else {
+            checkNumberOperands(expr.line, current, expr.step);
+        }
+        Object value = Numbers.binary(expr.operator, current, expr.step);
+
+        scope.define(expr.name, value);
+        return value;
+    }
+
+    @Override
+    public Object visitInvariantExpr(Expr.Invariant expr) {
+        // evaluated lazily, so that errors surface at the same point as without hoisting
+        Object value = invariants[expr.slot];
+        if (value == UNCACHED) {
+            value = evaluate(expr.expression);
+            invariants[expr.slot] = value;
+        }
+        return value;
+    }
+
     @Override
     public Object visitLiteralExpr(Expr.Literal expr) {
         return expr.value;
@@ -135,8 +542,9 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitLogicalExpr(Expr.Logical expr) {
+        trace(expr.line);
         Object left = evaluate(expr.left);
-        if (expr.operator.type == TokenType.OR) {
+        if (expr.operator == TokenType.OR) {
             if (isTruthy(left)) {
                 return left;
             }
@@ -149,13 +557,92 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return evaluate(expr.right);
     }
 
+    @Override
+    public Object visitSetExpr(Expr.Set expr) {
+        Object object = evaluate(expr.object);
+        trace(expr.line);
+        if (!(object instanceof YnkInstance)) {
+            throw new RuntimeError(expr.line, "Only instances have fields.");
+        }
+
+        Object value = evaluate(expr.value);
+        YnkInstance instance = (YnkInstance) object;
+        Shape shape = instance.shape;
+        InlineCache.Entry entry = expr.cache.lookup(shape);
+        if (entry == null) {
+            // the target is the shape of the instance after the assignment
+            int slot = shape.slotOf(expr.name);
+            Shape next = slot >= 0 ? shape : shape.withField(expr.name);
+            entry = new InlineCache.Entry(shape, slot >= 0 ? slot : next.size - 1, next);
+            if (INLINE_CACHES) {
+                expr.cache.add(shape, entry.slot, next);
+            }
+        }
+
+        if (entry.target == shape) {
+            instance.fields[entry.slot] = value;
+        } else {
+            instance.addField((Shape) entry.target, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object visitSpawnExpr(Expr.Spawn expr) {
+        trace(expr.line);
+        // callee and arguments are evaluated by the spawning task, only the call itself runs concurrently
+        Object callee = evaluate(expr.call.callee);
+
+        poll(expr.line);
+
+        List<Object> arguments = evaluateArguments(expr.call);
+        YnkCallable function = checkCallable(expr.call.line, callee, arguments);
+
+        Interpreter task = new Interpreter(this);
+        return YnkTask.start(() -> {
+            if (task.usage != null) {
+                task.usage.enter();
+            }
+            try {
+                return task.call(expr.call.line, function, arguments);
+            } finally {
+                if (task.usage != null) {
+                    task.usage.leave();
+                }
+                if (task.shadow != null) {
+                    task.shadow.profiler.untrack(task.shadow);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Object visitSuperExpr(Expr.Super expr) {
+        trace(expr.line);
+        YnkClass superclass = (YnkClass) lookUp("super", expr.depth, expr.line);
+        YnkInstance object = (YnkInstance) lookUp("this", expr.thisDepth, expr.line);
+
+        YnkFunction method = superclass.findMethod(expr.method);
+        if (method == null) {
+            throw new RuntimeError(expr.line, "Undefined property '" + expr.method + "'.");
+        }
+        return method.bind(object);
+    }
+
+    @Override
+    public Object visitThisExpr(Expr.This expr) {
+        trace(expr.line);
+        return lookUp("this", expr.depth, expr.line);
+    }
+
     @Override
     public Object visitUnaryExpr(Expr.Unary expr) {
+        trace(expr.line);
         Object right = evaluate(expr.right);
 
-        switch (expr.operator.type) {
-            case BANG: return isTruthy(right);
-            case MINUS: checkNumberOperand(expr.operator, right); return -(double) right;
+        switch (expr.operator) {
+            case BANG: return !isTruthy(right);
+            case MINUS: checkNumberOperand(expr.line, right); return Numbers.negate(right);
         }
 
         // unreachable
@@ -164,47 +651,131 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitVariableExpr(Expr.Variable expr) {
-        return environment.get(expr.name);
+        trace(expr.line);
+        return lookUp(expr.name, expr.depth, expr.line);
     }
 
+    /**
+     * Dispatch on the kind of node instead of the virtual `accept()`, which sees every type of node and so can
+     * neither be inlined nor predicted well. Calls of the visitor methods of this class are direct, so the JIT
+     * inlines the small ones, like literals and variables, right into the caller. Only the nodes of arithmetic are
+     * switched on: calls, property reads and logical operators take as long with `dispatch()` as they do here.
+     */
     private Object evaluate(Expr expr) {
-        return expr.accept(this);
+        switch (expr.kind) {
+            case Expr.LITERAL: return ((Expr.Literal) expr).value;
+            case Expr.VARIABLE: return visitVariableExpr((Expr.Variable) expr);
+            case Expr.BINARY: return visitBinaryExpr((Expr.Binary) expr);
+            case Expr.INVARIANT: return visitInvariantExpr((Expr.Invariant) expr);
+            case Expr.ASSIGN: return visitAssignExpr((Expr.Assign) expr);
+            case Expr.INCREMENT: return visitIncrementExpr((Expr.Increment) expr);
+            default: return Expr.dispatch(expr, this);
+        }
     }
 
     private void execute(Stmt stmt) {
-        stmt.accept(this);
+        switch (stmt.kind) {
+            case Stmt.EXPRESSION: evaluate(((Stmt.Expression) stmt).expression); break;
+            case Stmt.IF: visitIfStmt((Stmt.If) stmt); break;
+            case Stmt.BLOCK: visitBlockStmt((Stmt.Block) stmt); break;
+            default: Stmt.dispatch(stmt, this);
+        }
     }
 
     void executeBlock(List<Stmt> statements, Environment environment) {
+        allocations += 1;
         Environment previous = this.environment;
         try {
             this.environment = environment;
 
             for (Stmt statement: statements) {
                 execute(statement);
+                if (completion != NORMAL) {
+                    break;
+                }
             }
         } finally {
             this.environment = previous;
         }
     }
 
+    /**
+     * Execute the body of a function in the given scope.
+     * @return the value that the body returned, or `nil` if it ran to its end
+     */
+    Object executeBody(List<Stmt> body, Environment environment) {
+        executeBlock(body, environment);
+        if (completion != RETURN) {
+            return null;
+        }
+        Object value = returnValue;
+        completion = NORMAL;
+        returnValue = null;
+        return value;
+    }
+
+    @Override
+    public Void visitBreakStmt(Stmt.Break stmt) {
+        completion = BREAK;
+        return null;
+    }
+
     @Override
     public Void visitBlockStmt(Stmt.Block stmt) {
+        poll(0);
         executeBlock(stmt.statements, new Environment(environment));
         return null;
     }
 
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        YnkClass superclass = null;
+        if (stmt.superclass != null) {
+            Object value = evaluate(stmt.superclass);
+            if (!(value instanceof YnkClass)) {
+                throw new RuntimeError(stmt.superclass.line, "Superclass must be a class.");
+            }
+            superclass = (YnkClass) value;
+        }
+
+        // instances share their shapes with those of earlier runs of the declaration, if it has the same superclass
+        Object key = superclass == null ? NO_SUPERCLASS : superclass.emptyShape;
+        InlineCache.Entry entry = stmt.shapes.lookup(key);
+        Shape shape;
+        if (entry != null) {
+            shape = (Shape) entry.target;
+        } else {
+            shape = new Shape(stmt, superclass == null ? null : superclass.emptyShape);
+            stmt.shapes.add(key, -1, shape);
+        }
+
+        environment.define(stmt.name, null);
+
+        // methods find the superclass through `super` in the scope they are closed over
+        Environment scope = closure(stmt.captures, superclass);
+
+        // the variable was defined right above, so it is simply defined again
+        environment.define(stmt.name, new YnkClass(stmt, superclass, shape, scope));
+        return null;
+    }
+
     @Override
     public Void visitExpressionStmt(Stmt.Expression stmt) {
         evaluate(stmt.expression);
         return null;
     }
 
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        environment.define(stmt.name, new YnkFunction(stmt, closure(stmt.captures, null), false));
+        return null;
+    }
+
     @Override
     public Void visitIfStmt(Stmt.If stmt) {
         if (isTruthy(evaluate(stmt.condition))) {
             execute(stmt.thenBranch);
-        } else {
+        } else if (stmt.elseBranch != null) {
             execute(stmt.elseBranch);
         }
         return null;
@@ -213,47 +784,96 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitPrintStmt(Stmt.Print stmt) {
         Object value = evaluate(stmt.expression);
-        System.out.println(stringify(value));
+        out.println(stringify(value));
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        returnValue = stmt.value == null ? null : evaluate(stmt.value);
+        completion = RETURN;
         return null;
     }
 
     @Override
     public Void visitVarStmt(Stmt.Var stmt) {
+        trace(stmt.line);
         Object value = null;
         if (stmt.initializer != null) {
             value = evaluate(stmt.initializer);
         }
 
-        environment.define(stmt.name.lexeme, value);
+        environment.define(stmt.name, value);
         return null;
     }
 
     @Override
     public Void visitWhileStmt(Stmt.While stmt) {
-        while (isTruthy(evaluate(stmt.condition))) {
-            execute(stmt.body);
+        if (stmt.invariants == 0) {
+            while (isTruthy(evaluate(stmt.condition))) {
+                execute(stmt.body);
+                if (completion != NORMAL) {
+                    exitLoop();
+                    break;
+                }
+                poll(0);
+            }
+            return null;
+        }
+
+        // every entry into the loop starts with a fresh cache for its invariants
+        Object[] previous = invariants;
+        try {
+            invariants = new Object[stmt.invariants];
+            Arrays.fill(invariants, UNCACHED);
+
+            while (isTruthy(evaluate(stmt.condition))) {
+                execute(stmt.body);
+                if (completion != NORMAL) {
+                    exitLoop();
+                    break;
+                }
+                poll(0);
+            }
+        } finally {
+            invariants = previous;
         }
         return null;
     }
 
+    // a `break` ends the loop and is done with, a `return` also ends the enclosing function
+    private void exitLoop() {
+        if (completion == BREAK) {
+            completion = NORMAL;
+        }
+    }
+
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
+        trace(expr.line);
         Object value = evaluate(expr.value);
 
-        environment.assign(expr.name, value);
+        countLookup(expr.name, expr.depth);
+        if (expr.depth >= 0) {
+            environment.assignAt(expr.depth, expr.name, value);
+        } else {
+            (expr.depth == Resolver.GLOBAL ? globals : environment).assign(expr.name, value, expr.line);
+        }
         return value;
     }
 
-    private boolean isEqual(Object a, Object b) {
-        // nil is only equal to nil
-        if (a == null && b == null)
+    static boolean isEqual(Object a, Object b) {
+        // also covers nil, and interned strings in most cases
+        if (a == b)
             return true;
         if (a == null)
             return false;
+        if (Numbers.isNumber(a) && Numbers.isNumber(b))
+            return Numbers.equal(a, b);
         return a.equals(b);
     }
 
-    private boolean isTruthy(Object object) {
+    static boolean isTruthy(Object object) {
         if (object == null)
             return false;
         if (object instanceof Boolean)
@@ -261,17 +881,17 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return true;
     }
 
-    private void checkNumberOperand(Token operator, Object operand) {
-        if (operand instanceof Double)
+    static void checkNumberOperand(int line, Object operand) {
+        if (Numbers.isNumber(operand))
             return;
 
-        throw new RuntimeError(operator, "Operand must be a number.");
+        throw new RuntimeError(line, "Operand must be a number.");
     }
 
-    private void checkNumberOperands(Token operator, Object left, Object right) {
-        if (left instanceof Double && right instanceof Double)
+    static void checkNumberOperands(int line, Object left, Object right) {
+        if (Numbers.isNumber(left) && Numbers.isNumber(right))
             return;
 
-        throw new RuntimeError(operator, "Operands must be numbers.");
+        throw new RuntimeError(line, "Operands must be numbers.");
     }
 }
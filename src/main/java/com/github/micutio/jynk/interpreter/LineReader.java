@@ -0,0 +1,144 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Iterates over the lines of a UTF-8 file or stream without loading it as a whole.
+ * The input is read in chunks into a single buffer, which grows only for lines longer than itself. Finding the next
+ * line only looks for its end, a line is decoded into a string, with a single copy, when it is asked for. Lines end
+ * with `\n` or `\r\n`, which are not part of the line.
+ * Like all file handles, a reader must only be used by one task at a time.
+ */
+public class LineReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    // bytes [0, filled) of the buffer have been read, those before `next` are done with
+    private int filled = 0;
+    private int next = 0;
+    // where to continue the search for the end of the next line
+    private int scanned = 0;
+    private boolean endOfFile = false;
+
+    // the current line, `start` is -1 before the first and after the last line
+    private int start = -1;
+    private int end = -1;
+    private String line = null;
+
+    private String lastSearch = null;
+    private byte[] lastSearchBytes = null;
+
+    LineReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize initial size of the buffer, which limits how much is read at once
+     */
+    public LineReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Advance to the next line. Closes the file after the last line.
+     * @return whether there is another line
+     */
+    public boolean next() throws IOException {
+        line = null;
+        while (true) {
+            byte[] bytes = buffer.array();
+            for (int i = scanned; i < filled; i++) {
+                if (bytes[i] == '\n') {
+                    select(i);
+                    next = i + 1;
+                    scanned = next;
+                    return true;
+                }
+            }
+            scanned = filled;
+
+            if (endOfFile) {
+                if (next < filled) {
+                    // the last line has no line break
+                    select(filled);
+                    next = filled;
+                    return true;
+                }
+                start = -1;
+                close();
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void select(int lineBreak) {
+        start = next;
+        end = lineBreak > start && buffer.array()[lineBreak - 1] == '\r' ? lineBreak - 1 : lineBreak;
+    }
+
+    private void fill() throws IOException {
+        // drop the lines that are done with, then make room for at least one more byte
+        buffer.limit(filled).position(next);
+        buffer.compact();
+        filled -= next;
+        scanned -= next;
+        next = 0;
+        if (filled == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(buffer.flip());
+            buffer = larger;
+        }
+
+        buffer.limit(buffer.capacity()).position(filled);
+        if (channel.read(buffer) < 0) {
+            endOfFile = true;
+        }
+        filled = buffer.position();
+    }
+
+    /**
+     * @return the current line, or `null` before the first and after the last line
+     */
+    public String line() {
+        if (line == null && start >= 0) {
+            line = new String(buffer.array(), start, end - start, StandardCharsets.UTF_8);
+        }
+        return line;
+    }
+
+    /**
+     * Check whether the current line contains the text, without decoding the line.
+     */
+    boolean contains(String search) {
+        if (start < 0) {
+            return false;
+        }
+        // scripts usually search every line for the same literal
+        if (!search.equals(lastSearch)) {
+            lastSearch = search;
+            lastSearchBytes = search.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] text = lastSearchBytes;
+        byte[] bytes = buffer.array();
+        for (int i = start; i <= end - text.length; i++) {
+            if (Arrays.equals(bytes, i, i + text.length, text, 0, text.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped into memory for reading, so that scripts can search and read any part of it without copying the
+ * rest. A single `MappedByteBuffer` covers at most 2 GB, so larger files are mapped as several regions.
+ * The operating system unmaps the file once the handle has been closed and garbage collected.
+ */
+class MappedFile {
+    private static final int REGION_BITS = 30;
+    private static final long REGION_SIZE = 1L << REGION_BITS;
+
+    final long size;
+    private MappedByteBuffer[] regions;
+
+    MappedFile(Path path) throws IOException {
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_BITS)];
+            for (int i = 0; i < regions.length; i++) {
+                long position = i * REGION_SIZE;
+                long length = Math.min(REGION_SIZE, size - position);
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            }
+        }
+    }
+
+    private byte byteAt(long position) {
+        return regions[(int) (position >>> REGION_BITS)].get((int) (position & (REGION_SIZE - 1)));
+    }
+
+    /**
+     * Decode `length` bytes starting at `offset` as UTF-8.
+     */
+    String read(long offset, int length) {
+        checkOpen();
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new RuntimeError(null, "Range to read is outside of the file.");
+        }
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            MappedByteBuffer region = regions[(int) (position >>> REGION_BITS)];
+            int index = (int) (position & (REGION_SIZE - 1));
+            int count = Math.min(length - copied, region.limit() - index);
+            region.get(index, bytes, copied, count);
+            copied += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the offset of the first occurrence of the UTF-8 encoded text at or after `from`, or -1 if there is none
+     */
+    long indexOf(byte[] text, long from) {
+        checkOpen();
+        for (long position = Math.max(from, 0); position <= size - text.length; position++) {
+            if (matchesAt(position, text)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesAt(long position, byte[] text) {
+        for (int j = 0; j < text.length; j++) {
+            if (byteAt(position + j) != text[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void close() {
+        regions = null;
+    }
+
+    private void checkOpen() {
+        if (regions == null) {
+            throw new RuntimeError(null, "File is closed.");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pure function that remembers its results, created by the native `memoize`, see `FunctionNatives`.
+ *
+ * Results are cached by the arguments of the call, as long as all of them are nil, booleans, numbers or strings.
+ * Calls with any other argument, whose state could change between calls, always run the function. The cache holds at
+ * most `capacity` results and evicts the least recently used one when it is full. Tasks share the cache. Two tasks
+ * that miss the same arguments at the same time both run the function, which gives the same result for both.
+ *
+ * The function calls the memoized function when it calls itself, whatever its name refers to at the time, so each of
+ * its results is computed at most once while it is cached. Recursion still takes one Java stack frame per call, so a
+ * call that recurses deeper than any cached result, like the first call of a memoized `fib(2000)`, can still fail with
+ * a stack overflow.
+ */
+final class MemoizedFunction implements YnkCallable {
+    // stands in for nil in keys and cached results, which the map cannot tell apart from missing entries
+    private static final Object NIL = new Object();
+
+    final YnkCallable function;
+    private final Map<Object, Object> cache;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param function a pure function, a `YnkFunction` or a `CompiledFunction`
+     */
+    MemoizedFunction(YnkCallable function, int capacity) {
+        this.function = function instanceof YnkFunction
+            ? ((YnkFunction) function).recursingInto(this)
+            : ((CompiledFunction) function).recursingInto(this);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public int arity() {
+        return function.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Object key = key(arguments);
+        // `Interpreter.call` has already counted and profiled the call and reports errors at its line
+        if (key == null) {
+            return function.call(interpreter, arguments);
+        }
+
+        synchronized (cache) {
+            Object cached = cache.get(key);
+            if (cached != null) {
+                hits++;
+                return cached == NIL ? null : cached;
+            }
+            misses++;
+        }
+        // recursive calls look up the cache in the meantime, so it must not be locked while the function runs
+        Object value = function.call(interpreter, arguments);
+        synchronized (cache) {
+            cache.put(key, value == null ? NIL : value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the key of the arguments in the cache, or `null` if they cannot be cached
+     */
+    private static Object key(List<Object> arguments) {
+        if (arguments.size() == 1) {
+            return keyOf(arguments.get(0));
+        }
+        List<Object> key = new ArrayList<>(arguments.size());
+        for (Object argument: arguments) {
+            Object part = keyOf(argument);
+            if (part == null) {
+                return null;
+            }
+            key.add(part);
+        }
+        return key;
+    }
+
+    /**
+     * Values are compared with `equals`, which tells integers apart from equal doubles, so each of them keeps the
+     * result that the function computed for it.
+     */
+    private static Object keyOf(Object value) {
+        if (value == null) {
+            return NIL;
+        }
+        if (value instanceof Boolean || Numbers.isNumber(value) || value instanceof String) {
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * @return a map of the counters `hits`, `misses` and `evictions`, and the current `size` of the cache
+     */
+    YnkMap stats() {
+        YnkMap stats = new YnkMap();
+        synchronized (cache) {
+            stats.put("hits", Numbers.of(hits));
+            stats.put("misses", Numbers.of(misses));
+            stats.put("evictions", Numbers.of(evictions));
+            stats.put("size", Numbers.of(cache.size()));
+        }
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return function.toString();
+    }
+}
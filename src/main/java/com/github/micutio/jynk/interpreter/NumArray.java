@@ -0,0 +1,28 @@
+package com.github.micutio.jynk.interpreter;
+
+/**
+ * A fixed-length array of numbers, stored unboxed. Created and used through the natives in `ArrayNatives`.
+ */
+final class NumArray {
+    final double[] values;
+
+    NumArray(int length) {
+        this.values = new double[length];
+    }
+
+    NumArray(double[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(Interpreter.stringify(values[i]));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeStats;
+import com.github.micutio.jynk.lexing.TokenType;
+
+/**
+ * Arithmetic on Ynk numbers, which are either a `Long` or a `Double`.
+ *
+ * Integers are kept as `Long` as long as they lie within ±2^53, the range in which every integer is also exactly a
+ * double. Within that range integer arithmetic gives the same results as floating-point arithmetic, so the two
+ * representations can be mixed freely. Results outside of it, fractions, infinities, NaN and negative zero are
+ * doubles, exactly as if all numbers were doubles. The scanner produces `Long` literals for integers without a
+ * fractional part.
+ */
+public final class Numbers {
+    public static final long MAX_EXACT = 1L << 53;
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final Long[] cache = new Long[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = Long.valueOf(CACHE_LOW + i);
+        }
+    }
+
+    private Numbers() {}
+
+    public static boolean isNumber(Object value) {
+        return value instanceof Long || value instanceof Double;
+    }
+
+    /**
+     * @return the value as a `Long` if it is within the exact range, otherwise as a `Double`
+     */
+    public static Object of(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return cache[(int) value - CACHE_LOW];
+        }
+        if (value < -MAX_EXACT || value > MAX_EXACT) {
+            return of((double) value);
+        }
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.boxedLong();
+        }
+        return value;
+    }
+
+    public static Object of(double value) {
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.boxedDouble();
+        }
+        return value;
+    }
+
+    public static double toDouble(Object number) {
+        return number instanceof Long ? (double) (long) number : (double) number;
+    }
+
+    /**
+     * Apply an arithmetic or comparison operator to two numbers.
+     */
+    public static Object binary(TokenType operator, Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            long a = (long) left;
+            long b = (long) right;
+            switch (operator) {
+                // neither can overflow, since both operands are within ±2^53
+                case PLUS: return of(a + b);
+                case MINUS: return of(a - b);
+                case STAR:
+                    long product = a * b;
+                    if (Math.multiplyHigh(a, b) != product >> 63 || (product == 0 && (a < 0 || b < 0))) {
+                        return of((double) a * (double) b);
+                    }
+                    return of(product);
+                case SLASH:
+                    if (b != 0 && a % b == 0 && (a != 0 || b > 0)) {
+                        return of(a / b);
+                    }
+                    return of((double) a / (double) b);
+                case GREATER: return a > b;
+                case GREATER_EQUAL: return a >= b;
+                case LESS: return a < b;
+                case LESS_EQUAL: return a <= b;
+            }
+        }
+
+        double a = toDouble(left);
+        double b = toDouble(right);
+        switch (operator) {
+            case PLUS: return of(a + b);
+            case MINUS: return of(a - b);
+            case STAR: return of(a * b);
+            case SLASH: return of(a / b);
+            case GREATER: return a > b;
+            case GREATER_EQUAL: return a >= b;
+            case LESS: return a < b;
+            case LESS_EQUAL: return a <= b;
+        }
+        throw new IllegalArgumentException("Not a numeric operator: " + operator);
+    }
+
+    public static Object negate(Object number) {
+        if (number instanceof Long && (long) number != 0) {
+            return of(-(long) number);
+        }
+        // negative zero only exists as a double
+        return of(-toDouble(number));
+    }
+
+    /**
+     * Equality of two numbers as doubles: NaN equals itself, but zero does not equal negative zero.
+     */
+    public static boolean equal(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (long) a == (long) b;
+        }
+        return Double.doubleToLongBits(toDouble(a)) == Double.doubleToLongBits(toDouble(b));
+    }
+
+    /**
+     * @return whether the value is a finite number without a fractional part
+     */
+    public static boolean isInteger(Object value) {
+        return value instanceof Long || value instanceof Double && (double) value % 1 == 0;
+    }
+
+    static String toString(long value) {
+        // print exactly like the double of the same value, which switches to exponents at 10^7
+        if (value > -10_000_000 && value < 10_000_000) {
+            return Long.toString(value);
+        }
+        return Interpreter.stringify((double) value);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import com.github.micutio.jynk.lexing.StringTable;
+import com.github.micutio.jynk.lexing.TokenType;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What code compiled by `jynkc` does in place of the visitor methods of the `Interpreter`, with the same semantics and
+ * the same errors. Every operation that can fail is passed the source line to report.
+ * Compiled code keeps local variables in Java variables and only goes through the interpreter for globals, natives
+ * and tasks. It has no execution budget and no profiler.
+ */
+public final class Operations {
+    public static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private Operations() {}
+
+    public static Object global(Interpreter interpreter, String name, int line) {
+        return interpreter.globals.get(name, line);
+    }
+
+    public static void define(Interpreter interpreter, String name, Object value) {
+        interpreter.globals.define(name, value);
+    }
+
+    public static Object assignGlobal(Interpreter interpreter, String name, Object value, int line) {
+        interpreter.globals.assign(name, value, line);
+        return value;
+    }
+
+    /**
+     * Same result and errors as `name = name + step`, see `Expr.Increment`.
+     */
+    public static Object increment(Object current, TokenType operator, Object step, int line) {
+        if (operator == TokenType.PLUS) {
+            if (!Numbers.isNumber(current)) {
+                throw new RuntimeError(line, "Operands must be two numbers or two strings.");
+            }
+        } else {
+            Interpreter.checkNumberOperands(line, current, step);
+        }
+        return Numbers.binary(operator, current, step);
+    }
+
+    public static Object incrementGlobal(Interpreter interpreter, String name, TokenType operator, Object step,
+                                         int line) {
+        Object value = increment(interpreter.globals.get(name, line), operator, step, line);
+        interpreter.globals.define(name, value);
+        return value;
+    }
+
+    public static boolean isTruthy(Object value) {
+        return Interpreter.isTruthy(value);
+    }
+
+    public static Object add(Object left, Object right, int line) {
+        if (Numbers.isNumber(left) && Numbers.isNumber(right)) {
+            return Numbers.binary(TokenType.PLUS, left, right);
+        }
+        if (left instanceof String && right instanceof String) {
+            return StringTable.internComputed((String) left + (String) right);
+        }
+        throw new RuntimeError(line, "Operands must be two numbers or two strings.");
+    }
+
+    /**
+     * Apply an arithmetic operator other than `+`, or a comparison.
+     */
+    public static Object binary(TokenType operator, Object left, Object right, int line) {
+        Interpreter.checkNumberOperands(line, left, right);
+        return Numbers.binary(operator, left, right);
+    }
+
+    public static Object equal(Object left, Object right) {
+        return Interpreter.isEqual(left, right);
+    }
+
+    public static Object notEqual(Object left, Object right) {
+        return !Interpreter.isEqual(left, right);
+    }
+
+    public static Object not(Object value) {
+        return !Interpreter.isTruthy(value);
+    }
+
+    public static Object negate(Object value, int line) {
+        Interpreter.checkNumberOperand(line, value);
+        return Numbers.negate(value);
+    }
+
+    /**
+     * Evaluate an expression for its side effects only.
+     */
+    public static void ignore(Object value) {
+    }
+
+    public static void print(Interpreter interpreter, Object value) {
+        interpreter.out.println(Interpreter.stringify(value));
+    }
+
+    /**
+     * Call a function, class or native function with arguments that have already been evaluated.
+     */
+    public static Object call(Interpreter interpreter, Object callee, Object[] arguments, int line) {
+        // compiled functions and classes report their own lines
+        try {
+            if (callee instanceof CompiledFunction) {
+                CompiledFunction function = (CompiledFunction) callee;
+                checkArity(function.arity, arguments.length, line);
+                return function.invoke(interpreter, arguments);
+            }
+            if (callee instanceof CompiledClass) {
+                CompiledClass klass = (CompiledClass) callee;
+                checkArity(klass.arity(), arguments.length, line);
+                return klass.instantiate(interpreter, arguments);
+            }
+        } catch (StackOverflowError error) {
+            throw new RuntimeError(line, "Stack overflow.");
+        }
+
+        List<Object> list = Arrays.asList(arguments);
+        return interpreter.call(line, interpreter.checkCallable(line, callee, list), list);
+    }
+
+    private static void checkArity(int arity, int count, int line) {
+        if (count != arity) {
+            throw new RuntimeError(line, "Expected " + arity + " arguments but got " + count + ".");
+        }
+    }
+
+    public static Object spawn(Interpreter interpreter, Object callee, Object[] arguments, int line) {
+        List<Object> list = Arrays.asList(arguments);
+        YnkCallable function = interpreter.checkCallable(line, callee, list);
+        Interpreter task = new Interpreter(interpreter);
+        return YnkTask.start(() -> task.call(line, function, list));
+    }
+
+    public static Object get(Object object, String name, int line) {
+        if (!(object instanceof CompiledInstance)) {
+            throw new RuntimeError(line, "Only instances have properties.");
+        }
+
+        // fields shadow methods of the same name, even when they are nil
+        CompiledInstance instance = (CompiledInstance) object;
+        Object value = instance.fields.get(name);
+        if (value != null || instance.fields.containsKey(name)) {
+            return value;
+        }
+        CompiledMethod method = instance.klass.findMethod(name);
+        if (method == null) {
+            throw new RuntimeError(line, "Undefined property '" + name + "'.");
+        }
+        return method.bind(instance);
+    }
+
+    /**
+     * Check that an object can have fields, before the value assigned to the field is evaluated.
+     */
+    public static CompiledInstance instance(Object object, int line) {
+        if (!(object instanceof CompiledInstance)) {
+            throw new RuntimeError(line, "Only instances have fields.");
+        }
+        return (CompiledInstance) object;
+    }
+
+    public static Object set(CompiledInstance instance, String name, Object value) {
+        instance.fields.put(name, value);
+        return value;
+    }
+
+    public static CompiledClass superclass(Object value, int line) {
+        if (!(value instanceof CompiledClass)) {
+            throw new RuntimeError(line, "Superclass must be a class.");
+        }
+        return (CompiledClass) value;
+    }
+
+    public static Object superMethod(Object superclass, Object self, String name, int line) {
+        CompiledMethod method = ((CompiledClass) superclass).findMethod(name);
+        if (method == null) {
+            throw new RuntimeError(line, "Undefined property '" + name + "'.");
+        }
+        return method.bind((CompiledInstance) self);
+    }
+}
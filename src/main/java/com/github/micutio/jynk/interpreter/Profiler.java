@@ -0,0 +1,93 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampling profiler for Ynk code. Attributes time to the Ynk call stack and source lines instead of the Java frames
+ * of the interpreter.
+ *
+ * Attached interpreters maintain a `ShadowStack` of the Ynk functions they run and the line they are at. A
+ * background thread samples all stacks at a fixed interval and counts how often each distinct stack was seen. The
+ * result is written in the collapsed-stack format that flamegraph tools read: one line per stack with the frames,
+ * outermost first, separated by `;`, followed by a space and the number of samples. Frames are written as
+ * `<name>:<line>`, where the top-level script is called `<script>`.
+ */
+public class Profiler {
+    private final long intervalNanos;
+    private final CopyOnWriteArrayList<ShadowStack> stacks = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> samples = new ConcurrentHashMap<>();
+    private volatile Thread sampler;
+
+    /**
+     * @param intervalMicros time between two samples
+     */
+    public Profiler(long intervalMicros) {
+        this.intervalNanos = intervalMicros * 1000;
+    }
+
+    /**
+     * Start keeping track of the Ynk call stack of the interpreter, including the tasks it spawns from now on.
+     */
+    public void attach(Interpreter interpreter) {
+        interpreter.profileWith(track());
+    }
+
+    ShadowStack track() {
+        ShadowStack stack = new ShadowStack(this);
+        stacks.add(stack);
+        return stack;
+    }
+
+    void untrack(ShadowStack stack) {
+        stacks.remove(stack);
+    }
+
+    public synchronized void start() {
+        if (sampler != null) {
+            return;
+        }
+
+        sampler = new Thread(() -> {
+            while (sampler == Thread.currentThread()) {
+                LockSupport.parkNanos(intervalNanos);
+                for (ShadowStack stack: stacks) {
+                    String sample = stack.sample();
+                    if (sample != null) {
+                        samples.merge(sample, 1L, Long::sum);
+                    }
+                }
+            }
+        }, "ynk-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    public synchronized void stop() {
+        Thread thread = sampler;
+        sampler = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Write all samples taken so far as collapsed stacks, sorted by stack.
+     */
+    public void writeCollapsed(Writer out) throws IOException {
+        for (Map.Entry<String, Long> entry: new TreeMap<>(samples).entrySet()) {
+            out.write(entry.getKey() + " " + entry.getValue() + "\n");
+        }
+        out.flush();
+    }
+}
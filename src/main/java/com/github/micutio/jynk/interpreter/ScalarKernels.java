@@ -0,0 +1,56 @@
+package com.github.micutio.jynk.interpreter;
+
+/**
+ * Bulk operations as plain loops, which the JIT may still vectorize where it can keep the exact order of operations.
+ */
+final class ScalarKernels implements ArrayKernels {
+    @Override
+    public void add(double[] a, double[] b, double[] result) {
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void scale(double[] a, double factor, double[] result) {
+        for (int i = 0; i < a.length; i++) {
+            result[i] = a[i] * factor;
+        }
+    }
+
+    @Override
+    public double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double sum(double[] a) {
+        double sum = 0;
+        for (double value: a) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] a) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value: a) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] a) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value: a) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.Arrays;
+
+/**
+ * The Ynk call stack of one interpreter, kept up to date while a `Profiler` is attached.
+ * Frame `i` holds the name of a running function and the line it is at: for all but the innermost frame that is the
+ * line of the call to the next frame, for the innermost frame it is `currentLine`.
+ *
+ * Only the interpreter's thread writes to the stack. The sampling thread reads it without locking, so a sample may
+ * be slightly out of date, which is fine for statistics. Publishing `depth` last makes sure that a sample never
+ * contains frames that haven't been filled in yet.
+ */
+class ShadowStack {
+    final Profiler profiler;
+
+    private String[] names = new String[64];
+    private int[] callerLines = new int[64];
+    private volatile int depth = 0;
+    int currentLine = 0;
+
+    ShadowStack(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    void push(String name) {
+        int top = depth;
+        if (top == names.length) {
+            names = Arrays.copyOf(names, top * 2);
+            callerLines = Arrays.copyOf(callerLines, top * 2);
+        }
+        if (top > 0) {
+            callerLines[top - 1] = currentLine;
+        }
+        names[top] = name;
+        depth = top + 1;
+    }
+
+    void pop() {
+        int top = depth - 1;
+        depth = top;
+        if (top > 0) {
+            currentLine = callerLines[top - 1];
+        }
+    }
+
+    /**
+     * @return the frames from outermost to innermost in collapsed-stack notation, or `null` if nothing is running
+     */
+    String sample() {
+        int top = depth;
+        String[] names = this.names;
+        int[] callerLines = this.callerLines;
+        if (top == 0 || top > names.length) {
+            return null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < top; i++) {
+            if (i > 0) {
+                builder.append(';');
+            }
+            builder.append(names[i]).append(':').append(i == top - 1 ? currentLine : callerLines[i]);
+        }
+        return builder.toString();
+    }
+}
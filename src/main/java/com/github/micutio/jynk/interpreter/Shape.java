@@ -0,0 +1,103 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.ast.Stmt;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hidden class of an instance: which fields it has, where they are stored and which methods its class declares.
+ * Instances start with the empty shape of their class. Adding a field moves an instance on to the shape that has one
+ * more field, which is created once and then shared by all instances that add the same fields in the same order.
+ * So instances built by the same initializer share their shape and the field names are stored once per shape instead
+ * of once per instance.
+ *
+ * Shapes belong to a class declaration rather than to a class value, so that the inline caches of a script stay valid
+ * when the script runs again and declares its classes anew. Shapes are immutable apart from their transitions, which
+ * may be added by several tasks at once.
+ */
+final class Shape {
+    /**
+     * A method found for a shape, declared by the class `depth` levels up the superclass chain.
+     */
+    static final class Method {
+        final Stmt.Function declaration;
+        final int depth;
+
+        private Method(Stmt.Function declaration, int depth) {
+            this.declaration = declaration;
+            this.depth = depth;
+        }
+    }
+
+    // the shape without fields, which holds what all shapes of a class declaration have in common
+    final Shape empty;
+    // number of fields, the next field gets this slot
+    final int size;
+
+    private final Map<String, Integer> slots;
+    private final ConcurrentHashMap<String, Shape> transitions = new ConcurrentHashMap<>();
+
+    // only set for empty shapes
+    private final Map<String, Stmt.Function> methods;
+    private final Shape superclass;
+    // largest number of fields seen on an instance so far, to allocate new instances with room for all of them
+    volatile int expectedFields = 0;
+
+    /**
+     * Create the empty shape of a class declaration.
+     * @param superclass empty shape of the superclass, or `null` if there is none
+     */
+    Shape(Stmt.Class declaration, Shape superclass) {
+        this.empty = this;
+        this.slots = new HashMap<>();
+        this.size = 0;
+        this.methods = new HashMap<>();
+        for (Stmt.Function method: declaration.methods) {
+            methods.put(method.name, method);
+        }
+        this.superclass = superclass;
+    }
+
+    private Shape(Shape empty, Map<String, Integer> slots) {
+        this.empty = empty;
+        this.slots = slots;
+        this.size = slots.size();
+        this.methods = null;
+        this.superclass = null;
+    }
+
+    /**
+     * @return the slot of the field or -1 if instances of this shape don't have it
+     */
+    int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @return the method of this class declaration or the nearest superclass that has it, or `null` if there is none
+     */
+    Method findMethod(String name) {
+        int depth = 0;
+        for (Shape shape = empty; shape != null; shape = shape.superclass) {
+            Stmt.Function method = shape.methods.get(name);
+            if (method != null) {
+                return new Method(method, depth);
+            }
+            depth++;
+        }
+        return null;
+    }
+
+    /**
+     * @return the shape of an instance of this shape after adding a field
+     */
+    Shape withField(String name) {
+        return transitions.computeIfAbsent(name, field -> {
+            Map<String, Integer> extended = new HashMap<>(slots);
+            extended.put(field, size);
+            return new Shape(empty, extended);
+        });
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.lexing.StringTable;
+import com.github.micutio.jynk.parsing.Environment;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Image of the global variables of an interpreter, for example after running a prelude, which another interpreter
+ * can restore instead of running the prelude again.
+ *
+ * The file starts with the magic bytes `YNKS`, a format version and the number of entries. Each entry is the name of
+ * a variable followed by a tag byte and the value. Numbers are stored as 8 bytes, strings and names as their length
+ * and UTF-8 bytes, all in big-endian byte order. The file is memory-mapped when it is restored.
+ *
+ * Functions and classes are stored as their resolved syntax trees, see `TreeCodec`, if they are closed over nothing
+ * but the globals, which holds for those declared at the top level of a script. A class is stored after its
+ * superclass. A function or class that several variables refer to is stored once and then referred to by the index in
+ * the order they were stored, so that the restored variables refer to the same value again.
+ *
+ * Native functions are left out, because every interpreter defines them anyway. Closures over local variables,
+ * instances, arrays, maps, channels and tasks cannot be stored.
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x594e4b53; // "YNKS"
+    private static final int VERSION = 2;
+
+    private static final byte NIL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte NUMBER = 3;
+    private static final byte STRING = 4;
+    private static final byte INTEGER = 5;
+    private static final byte FUNCTION = 6;
+    private static final byte CLASS = 7;
+    // a function or class stored before, by its index
+    private static final byte REFERENCE = 8;
+
+    private Snapshot() {}
+
+    /**
+     * Write the global variables of the interpreter to the file.
+     * @return the names of all variables that were left out because their values cannot be stored
+     */
+    public static List<String> write(Interpreter interpreter, Path file) throws IOException {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        List<String> skipped = new ArrayList<>();
+        interpreter.globals.forEach((name, value) -> {
+            if (isStorable(interpreter, value)) {
+                entries.put(name, value);
+            } else if (!(value instanceof NativeFunction)) {
+                skipped.add(name);
+            }
+        });
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            Map<Object, Integer> stored = new IdentityHashMap<>();
+            for (Map.Entry<String, Object> entry: entries.entrySet()) {
+                writeString(out, entry.getKey());
+                writeValue(out, entry.getValue(), stored);
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Define all variables stored in the file as globals of the interpreter.
+     */
+    public static void restore(Interpreter interpreter, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a Ynk snapshot.");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported snapshot version " + version + ".");
+            }
+
+            int count = buffer.getInt();
+            List<Object> restored = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String name = readString(buffer);
+                interpreter.globals.define(name, readValue(interpreter, buffer, restored));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(file + " is a truncated or corrupt Ynk snapshot.", e);
+        }
+    }
+
+    private static boolean isStorable(Interpreter interpreter, Object value) {
+        if (value == null || value instanceof Boolean || Numbers.isNumber(value) || value instanceof String) {
+            return true;
+        }
+        if (value instanceof YnkFunction) {
+            return ((YnkFunction) value).isGlobal(interpreter.globals);
+        }
+        if (value instanceof YnkClass) {
+            YnkClass klass = (YnkClass) value;
+            return klass.declaration.captures != null && klass.declaration.captures.isEmpty()
+                && (klass.superclass == null || isStorable(interpreter, klass.superclass));
+        }
+        return false;
+    }
+
+    /**
+     * @param stored the functions and classes stored so far, with their indices
+     */
+    private static void writeValue(DataOutputStream out, Object value, Map<Object, Integer> stored)
+        throws IOException {
+        if (!(value instanceof YnkFunction || value instanceof YnkClass)) {
+            writeConstant(out, value);
+            return;
+        }
+
+        Integer index = stored.get(value);
+        if (index != null) {
+            out.writeByte(REFERENCE);
+            out.writeInt(index);
+        } else if (value instanceof YnkFunction) {
+            out.writeByte(FUNCTION);
+            stored.put(value, stored.size());
+            TreeCodec.writeStmt(out, ((YnkFunction) value).declaration());
+        } else {
+            YnkClass klass = (YnkClass) value;
+            out.writeByte(CLASS);
+            writeValue(out, klass.superclass, stored);
+            stored.put(value, stored.size());
+            TreeCodec.writeStmt(out, klass.declaration);
+        }
+    }
+
+    /**
+     * @param restored the functions and classes restored so far, in the order they were stored
+     */
+    private static Object readValue(Interpreter interpreter, ByteBuffer buffer, List<Object> restored)
+        throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case FUNCTION:
+                Stmt.Function declaration = TreeCodec.readStmt(buffer, Stmt.Function.class);
+                YnkFunction function = new YnkFunction(declaration, interpreter.globals, false);
+                restored.add(function);
+                return function;
+            case CLASS:
+                Object superclass = readValue(interpreter, buffer, restored);
+                if (superclass != null && !(superclass instanceof YnkClass)) {
+                    throw new IOException("Superclass in snapshot is not a class.");
+                }
+                YnkClass klass = restoreClass(interpreter, TreeCodec.readStmt(buffer, Stmt.Class.class),
+                    (YnkClass) superclass);
+                restored.add(klass);
+                return klass;
+            case REFERENCE:
+                int index = buffer.getInt();
+                if (index < 0 || index >= restored.size()) {
+                    throw new IOException("Reference " + index + " in snapshot is out of bounds.");
+                }
+                return restored.get(index);
+        }
+        return constant(tag, buffer);
+    }
+
+    /**
+     * Create a class like the interpreter does when it runs the declaration, see `Interpreter.visitClassStmt`.
+     */
+    private static YnkClass restoreClass(Interpreter interpreter, Stmt.Class declaration, YnkClass superclass) {
+        Shape shape = new Shape(declaration, superclass == null ? null : superclass.emptyShape);
+        Environment scope = interpreter.closure(declaration.captures, superclass);
+        return new YnkClass(declaration, superclass, shape, scope);
+    }
+
+    /**
+     * Write nil, a boolean, a number or a string.
+     */
+    static void writeConstant(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NIL);
+        } else if (value instanceof Boolean) {
+            out.writeByte((boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            out.writeByte(NUMBER);
+            out.writeDouble((double) value);
+        } else if (value instanceof Long) {
+            out.writeByte(INTEGER);
+            out.writeLong((long) value);
+        } else {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        }
+    }
+
+    static Object readConstant(ByteBuffer buffer) throws IOException {
+        return constant(buffer.get(), buffer);
+    }
+
+    private static Object constant(byte tag, ByteBuffer buffer) throws IOException {
+        switch (tag) {
+            case NIL: return null;
+            case FALSE: return false;
+            case TRUE: return true;
+            case NUMBER: return buffer.getDouble();
+            case STRING: return readString(buffer);
+            case INTEGER: return buffer.getLong();
+        }
+        throw new IOException("Unknown value tag " + tag + " in snapshot.");
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        // reported as a corrupt snapshot by `restore`, before a bogus length allocates anything
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " is out of bounds.");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return StringTable.intern(new String(bytes, StandardCharsets.UTF_8));
+    }
+}
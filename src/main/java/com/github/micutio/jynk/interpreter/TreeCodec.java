@@ -0,0 +1,340 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.InlineCache;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.ast.ValueType;
+import com.github.micutio.jynk.lexing.TokenType;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the resolved syntax trees of functions and classes to a snapshot and reads them back, see `Snapshot`.
+ *
+ * Every node starts with its kind as a byte, or -1 for a missing node, followed by its fields in the order of its
+ * constructor. Lists are stored as their size and elements, names and operators as strings, and literals like the
+ * values of variables. Inline caches only hold shapes of the interpreter that filled them in, so they are not stored,
+ * and the nodes read back start with empty ones.
+ */
+final class TreeCodec {
+    private static final byte NONE = -1;
+
+    private TreeCodec() {}
+
+    static void writeStmt(DataOutputStream out, Stmt stmt) throws IOException {
+        if (stmt == null) {
+            out.writeByte(NONE);
+            return;
+        }
+        out.writeByte(stmt.kind);
+        switch (stmt.kind) {
+            case Stmt.BLOCK:
+                writeStatements(out, ((Stmt.Block) stmt).statements);
+                break;
+            case Stmt.BREAK:
+                out.writeInt(((Stmt.Break) stmt).line);
+                break;
+            case Stmt.CLASS:
+                Stmt.Class klass = (Stmt.Class) stmt;
+                Snapshot.writeString(out, klass.name);
+                writeExpr(out, klass.superclass);
+                writeStatements(out, klass.methods);
+                writeExpressions(out, klass.captures);
+                break;
+            case Stmt.EXPRESSION:
+                writeExpr(out, ((Stmt.Expression) stmt).expression);
+                break;
+            case Stmt.FUNCTION:
+                Stmt.Function function = (Stmt.Function) stmt;
+                Snapshot.writeString(out, function.name);
+                out.writeInt(function.params.size());
+                for (String param: function.params) {
+                    Snapshot.writeString(out, param);
+                }
+                writeStatements(out, function.body);
+                writeExpressions(out, function.captures);
+                break;
+            case Stmt.IF:
+                Stmt.If branch = (Stmt.If) stmt;
+                writeExpr(out, branch.condition);
+                writeStmt(out, branch.thenBranch);
+                writeStmt(out, branch.elseBranch);
+                break;
+            case Stmt.PRINT:
+                writeExpr(out, ((Stmt.Print) stmt).expression);
+                break;
+            case Stmt.RETURN:
+                writeExpr(out, ((Stmt.Return) stmt).value);
+                out.writeInt(((Stmt.Return) stmt).line);
+                break;
+            case Stmt.VAR:
+                Stmt.Var var = (Stmt.Var) stmt;
+                Snapshot.writeString(out, var.name);
+                writeExpr(out, var.initializer);
+                out.writeInt(var.line);
+                break;
+            case Stmt.WHILE:
+                Stmt.While loop = (Stmt.While) stmt;
+                writeExpr(out, loop.condition);
+                writeStmt(out, loop.body);
+                out.writeInt(loop.invariants);
+                break;
+            default:
+                throw new IllegalStateException("Unknown statement kind " + stmt.kind);
+        }
+    }
+
+    private static void writeExpr(DataOutputStream out, Expr expr) throws IOException {
+        if (expr == null) {
+            out.writeByte(NONE);
+            return;
+        }
+        out.writeByte(expr.kind);
+        switch (expr.kind) {
+            case Expr.ASSIGN:
+                Expr.Assign assign = (Expr.Assign) expr;
+                Snapshot.writeString(out, assign.name);
+                writeExpr(out, assign.value);
+                out.writeInt(assign.line);
+                out.writeInt(assign.depth);
+                break;
+            case Expr.BINARY:
+                Expr.Binary binary = (Expr.Binary) expr;
+                writeExpr(out, binary.left);
+                Snapshot.writeString(out, binary.operator.name());
+                writeExpr(out, binary.right);
+                out.writeInt(binary.line);
+                Snapshot.writeString(out, binary.operands.name());
+                break;
+            case Expr.CALL:
+                Expr.Call call = (Expr.Call) expr;
+                writeExpr(out, call.callee);
+                writeExpressions(out, call.arguments);
+                out.writeInt(call.line);
+                break;
+            case Expr.GET:
+                Expr.Get get = (Expr.Get) expr;
+                writeExpr(out, get.object);
+                Snapshot.writeString(out, get.name);
+                out.writeInt(get.line);
+                break;
+            case Expr.GROUPING:
+                writeExpr(out, ((Expr.Grouping) expr).expression);
+                break;
+            case Expr.INCREMENT:
+                Expr.Increment increment = (Expr.Increment) expr;
+                Snapshot.writeString(out, increment.name);
+                Snapshot.writeString(out, increment.operator.name());
+                Snapshot.writeConstant(out, increment.step);
+                out.writeInt(increment.line);
+                out.writeInt(increment.depth);
+                break;
+            case Expr.INVARIANT:
+                writeExpr(out, ((Expr.Invariant) expr).expression);
+                out.writeInt(((Expr.Invariant) expr).slot);
+                break;
+            case Expr.LITERAL:
+                Snapshot.writeConstant(out, ((Expr.Literal) expr).value);
+                break;
+            case Expr.LOGICAL:
+                Expr.Logical logical = (Expr.Logical) expr;
+                writeExpr(out, logical.left);
+                Snapshot.writeString(out, logical.operator.name());
+                writeExpr(out, logical.right);
+                out.writeInt(logical.line);
+                break;
+            case Expr.SET:
+                Expr.Set set = (Expr.Set) expr;
+                writeExpr(out, set.object);
+                Snapshot.writeString(out, set.name);
+                writeExpr(out, set.value);
+                out.writeInt(set.line);
+                break;
+            case Expr.SPAWN:
+                writeExpr(out, ((Expr.Spawn) expr).call);
+                out.writeInt(((Expr.Spawn) expr).line);
+                break;
+            case Expr.SUPER:
+                Expr.Super superExpr = (Expr.Super) expr;
+                Snapshot.writeString(out, superExpr.method);
+                out.writeInt(superExpr.line);
+                out.writeInt(superExpr.depth);
+                out.writeInt(superExpr.thisDepth);
+                break;
+            case Expr.THIS:
+                out.writeInt(((Expr.This) expr).line);
+                out.writeInt(((Expr.This) expr).depth);
+                break;
+            case Expr.UNARY:
+                Expr.Unary unary = (Expr.Unary) expr;
+                Snapshot.writeString(out, unary.operator.name());
+                writeExpr(out, unary.right);
+                out.writeInt(unary.line);
+                break;
+            case Expr.VARIABLE:
+                Expr.Variable variable = (Expr.Variable) expr;
+                Snapshot.writeString(out, variable.name);
+                out.writeInt(variable.line);
+                out.writeInt(variable.depth);
+                break;
+            default:
+                throw new IllegalStateException("Unknown expression kind " + expr.kind);
+        }
+    }
+
+    private static void writeStatements(DataOutputStream out, List<? extends Stmt> statements) throws IOException {
+        out.writeInt(statements.size());
+        for (Stmt statement: statements) {
+            writeStmt(out, statement);
+        }
+    }
+
+    private static void writeExpressions(DataOutputStream out, List<? extends Expr> expressions) throws IOException {
+        out.writeInt(expressions.size());
+        for (Expr expression: expressions) {
+            writeExpr(out, expression);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not hold a statement of the given type
+     */
+    static <T extends Stmt> T readStmt(ByteBuffer buffer, Class<T> type) throws IOException {
+        Stmt stmt = readStmt(buffer);
+        if (stmt != null && !type.isInstance(stmt)) {
+            throw new IllegalArgumentException("Expected a " + type.getSimpleName() + " node.");
+        }
+        return type.cast(stmt);
+    }
+
+    private static Stmt readStmt(ByteBuffer buffer) throws IOException {
+        byte kind = buffer.get();
+        switch (kind) {
+            case NONE:
+                return null;
+            case Stmt.BLOCK:
+                return new Stmt.Block(readStatements(buffer, Stmt.class));
+            case Stmt.BREAK:
+                return new Stmt.Break(buffer.getInt());
+            case Stmt.CLASS:
+                return new Stmt.Class(Snapshot.readString(buffer), readExpr(buffer, Expr.Variable.class),
+                    readStatements(buffer, Stmt.Function.class), new InlineCache(),
+                    readExpressions(buffer, Expr.Variable.class));
+            case Stmt.EXPRESSION:
+                return new Stmt.Expression(readExpr(buffer));
+            case Stmt.FUNCTION:
+                String name = Snapshot.readString(buffer);
+                List<String> params = new ArrayList<>();
+                for (int i = readSize(buffer); i > 0; i--) {
+                    params.add(Snapshot.readString(buffer));
+                }
+                return new Stmt.Function(name, List.copyOf(params), readStatements(buffer, Stmt.class),
+                    readExpressions(buffer, Expr.Variable.class));
+            case Stmt.IF:
+                return new Stmt.If(readExpr(buffer), readStmt(buffer), readStmt(buffer));
+            case Stmt.PRINT:
+                return new Stmt.Print(readExpr(buffer));
+            case Stmt.RETURN:
+                return new Stmt.Return(readExpr(buffer), buffer.getInt());
+            case Stmt.VAR:
+                return new Stmt.Var(Snapshot.readString(buffer), readExpr(buffer), buffer.getInt());
+            case Stmt.WHILE:
+                return new Stmt.While(readExpr(buffer), readStmt(buffer), buffer.getInt());
+        }
+        throw new IllegalArgumentException("Unknown statement kind " + kind + ".");
+    }
+
+    private static <T extends Expr> T readExpr(ByteBuffer buffer, Class<T> type) throws IOException {
+        Expr expr = readExpr(buffer);
+        if (expr != null && !type.isInstance(expr)) {
+            throw new IllegalArgumentException("Expected a " + type.getSimpleName() + " node.");
+        }
+        return type.cast(expr);
+    }
+
+    private static Expr readExpr(ByteBuffer buffer) throws IOException {
+        byte kind = buffer.get();
+        switch (kind) {
+            case NONE:
+                return null;
+            case Expr.ASSIGN:
+                return new Expr.Assign(Snapshot.readString(buffer), readExpr(buffer), buffer.getInt(),
+                    buffer.getInt());
+            case Expr.BINARY:
+                return new Expr.Binary(readExpr(buffer), readOperator(buffer), readExpr(buffer), buffer.getInt(),
+                    ValueType.valueOf(Snapshot.readString(buffer)));
+            case Expr.CALL:
+                return new Expr.Call(readExpr(buffer), readExpressions(buffer, Expr.class), buffer.getInt());
+            case Expr.GET:
+                return new Expr.Get(readExpr(buffer), Snapshot.readString(buffer), new InlineCache(),
+                    buffer.getInt());
+            case Expr.GROUPING:
+                return new Expr.Grouping(readExpr(buffer));
+            case Expr.INCREMENT:
+                return new Expr.Increment(Snapshot.readString(buffer), readOperator(buffer),
+                    Snapshot.readConstant(buffer), buffer.getInt(), buffer.getInt());
+            case Expr.INVARIANT:
+                return new Expr.Invariant(readExpr(buffer), buffer.getInt());
+            case Expr.LITERAL:
+                return new Expr.Literal(Snapshot.readConstant(buffer));
+            case Expr.LOGICAL:
+                return new Expr.Logical(readExpr(buffer), readOperator(buffer), readExpr(buffer), buffer.getInt());
+            case Expr.SET:
+                return new Expr.Set(readExpr(buffer), Snapshot.readString(buffer), readExpr(buffer),
+                    new InlineCache(), buffer.getInt());
+            case Expr.SPAWN:
+                return new Expr.Spawn(readExpr(buffer, Expr.Call.class), buffer.getInt());
+            case Expr.SUPER:
+                return new Expr.Super(Snapshot.readString(buffer), buffer.getInt(), buffer.getInt(),
+                    buffer.getInt());
+            case Expr.THIS:
+                return new Expr.This(buffer.getInt(), buffer.getInt());
+            case Expr.UNARY:
+                return new Expr.Unary(readOperator(buffer), readExpr(buffer), buffer.getInt());
+            case Expr.VARIABLE:
+                return new Expr.Variable(Snapshot.readString(buffer), buffer.getInt(), buffer.getInt());
+        }
+        throw new IllegalArgumentException("Unknown expression kind " + kind + ".");
+    }
+
+    private static TokenType readOperator(ByteBuffer buffer) {
+        return TokenType.valueOf(Snapshot.readString(buffer));
+    }
+
+    private static <T extends Stmt> List<T> readStatements(ByteBuffer buffer, Class<T> type) throws IOException {
+        List<T> statements = new ArrayList<>();
+        for (int i = readSize(buffer); i > 0; i--) {
+            statements.add(present(readStmt(buffer, type)));
+        }
+        return List.copyOf(statements);
+    }
+
+    private static <T extends Expr> List<T> readExpressions(ByteBuffer buffer, Class<T> type) throws IOException {
+        List<T> expressions = new ArrayList<>();
+        for (int i = readSize(buffer); i > 0; i--) {
+            expressions.add(present(readExpr(buffer, type)));
+        }
+        return List.copyOf(expressions);
+    }
+
+    private static <T> T present(T node) {
+        if (node == null) {
+            throw new IllegalArgumentException("Lists of nodes cannot have missing elements.");
+        }
+        return node;
+    }
+
+    /**
+     * Every element takes at least one byte, so a list cannot be longer than what is left of the buffer.
+     */
+    private static int readSize(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining()) {
+            throw new IllegalArgumentException("List size " + size + " is out of bounds.");
+        }
+        return size;
+    }
+}
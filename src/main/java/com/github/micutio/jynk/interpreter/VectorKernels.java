@@ -0,0 +1,91 @@
+package com.github.micutio.jynk.interpreter;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Bulk operations with the Vector API, in the widest SIMD registers of the CPU. Each loop handles whole vectors
+ * first and the remaining elements one by one. Only loaded if the `jdk.incubator.vector` module is present.
+ */
+final class VectorKernels implements ArrayKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(double[] a, double[] b, double[] result) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)).intoArray(result, i);
+        }
+        for (; i < a.length; i++) {
+            result[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void scale(double[] a, double factor, double[] result) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(factor).intoArray(result, i);
+        }
+        for (; i < a.length; i++) {
+            result[i] = a[i] * factor;
+        }
+    }
+
+    @Override
+    public double dot(double[] a, double[] b) {
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            sums = sums.add(DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)));
+        }
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double sum(double[] a) {
+        DoubleVector sums = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            sums = sums.add(DoubleVector.fromArray(SPECIES, a, i));
+        }
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double min(double[] a) {
+        DoubleVector mins = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            mins = mins.min(DoubleVector.fromArray(SPECIES, a, i));
+        }
+        double min = mins.reduceLanes(VectorOperators.MIN);
+        for (; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] a) {
+        DoubleVector maxs = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            maxs = maxs.max(DoubleVector.fromArray(SPECIES, a, i));
+        }
+        double max = maxs.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+}
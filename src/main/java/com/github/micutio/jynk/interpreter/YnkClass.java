@@ -0,0 +1,69 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.parsing.Environment;
+import java.util.List;
+
+/**
+ * A class declared in a script. Calling a class creates an instance and runs its `init` method, if it has one.
+ * The methods are those of the class declaration, see `Shape`. They share one closure, which holds the variables
+ * they captured from the scopes the class was declared in and `super`.
+ */
+class YnkClass implements YnkCallable {
+    final String name;
+    final Stmt.Class declaration;
+    final YnkClass superclass;
+    final Shape emptyShape;
+
+    private final Environment methodScope;
+    // looked up once, since it is needed for every instance
+    private final YnkFunction initializer;
+
+    YnkClass(Stmt.Class declaration, YnkClass superclass, Shape emptyShape, Environment methodScope) {
+        this.name = declaration.name;
+        this.declaration = declaration;
+        this.superclass = superclass;
+        this.emptyShape = emptyShape;
+        this.methodScope = methodScope;
+        this.initializer = findMethod("init");
+    }
+
+    /**
+     * @return the method of this class or the nearest superclass that has it, or `null` if there is none
+     */
+    YnkFunction findMethod(String name) {
+        Shape.Method method = emptyShape.findMethod(name);
+        return method == null ? null : method(method);
+    }
+
+    /**
+     * @param method method found in the shape of an instance of this class
+     */
+    YnkFunction method(Shape.Method method) {
+        YnkClass owner = this;
+        for (int i = 0; i < method.depth; i++) {
+            owner = owner.superclass;
+        }
+        Stmt.Function declaration = method.declaration;
+        return new YnkFunction(declaration, owner.methodScope, declaration.name.equals("init"));
+    }
+
+    @Override
+    public int arity() {
+        return initializer == null ? 0 : initializer.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        YnkInstance instance = new YnkInstance(this);
+        if (initializer != null) {
+            initializer.bind(instance).call(interpreter, arguments);
+        }
+        return instance;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.optimizing.PurityAnalysis;
+import com.github.micutio.jynk.parsing.Environment;
+import java.util.List;
+
+/**
+ * A function declared in a script, together with its closure: the variables it captured from the scopes it was
+ * declared in, see `Resolver`.
+ * A method bound to an instance declares `this` next to its parameters whenever it is called.
+ */
+class YnkFunction implements YnkCallable {
+    private final Stmt.Function declaration;
+    private final Environment closure;
+    private final boolean isInitializer;
+    // instance the method is bound to, `null` for functions and unbound methods
+    private final YnkInstance receiver;
+
+    YnkFunction(Stmt.Function declaration, Environment closure, boolean isInitializer) {
+        this(declaration, closure, isInitializer, null);
+    }
+
+    private YnkFunction(Stmt.Function declaration, Environment closure, boolean isInitializer, YnkInstance receiver) {
+        this.declaration = declaration;
+        this.closure = closure;
+        this.isInitializer = isInitializer;
+        this.receiver = receiver;
+    }
+
+    YnkFunction bind(YnkInstance instance) {
+        return new YnkFunction(declaration, closure, isInitializer, instance);
+    }
+
+    String name() {
+        return declaration.name;
+    }
+
+    Stmt.Function declaration() {
+        return declaration;
+    }
+
+    /**
+     * @return whether the function is closed over nothing but the globals, like a function declared at the top level
+     *     of a script
+     */
+    boolean isGlobal(Environment globals) {
+        return closure == globals && receiver == null && declaration.captures != null;
+    }
+
+    /**
+     * @return why calls of the function cannot be memoized, or `null` if it is pure, see `PurityAnalysis`
+     */
+    String impurity() {
+        if (receiver != null) {
+            return "it is a method";
+        }
+        return PurityAnalysis.impurity(declaration);
+    }
+
+    /**
+     * @param self the callable that the calls of this pure function of itself call instead, see `MemoizedFunction`
+     * @return a copy of the function
+     */
+    YnkFunction recursingInto(YnkCallable self) {
+        Environment recursion = new Environment(closure);
+        recursion.define(declaration.name, self);
+        return new YnkFunction(PurityAnalysis.bindRecursion(declaration), recursion, false);
+    }
+
+    @Override
+    public int arity() {
+        return declaration.params.size();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Environment environment = new Environment(closure);
+        if (receiver != null) {
+            environment.define("this", receiver);
+        }
+        for (int i = 0; i < declaration.params.size(); i++) {
+            environment.define(declaration.params.get(i), arguments.get(i));
+        }
+
+        Object value = interpreter.executeBody(declaration.body, environment);
+
+        // initializers return the instance they initialized, even when left with an empty `return`
+        if (isInitializer) {
+            return receiver;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + declaration.name + ">";
+    }
+}
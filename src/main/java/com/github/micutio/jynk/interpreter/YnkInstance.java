@@ -0,0 +1,40 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.Arrays;
+
+/**
+ * An instance of a class. Fields are stored in an array, at the slots that the instance's `Shape` assigns to them.
+ * Instances are not synchronized, so tasks must not add fields to an instance while another task uses it.
+ */
+final class YnkInstance {
+    final YnkClass klass;
+    Shape shape;
+    Object[] fields;
+
+    YnkInstance(YnkClass klass) {
+        this.klass = klass;
+        this.shape = klass.emptyShape;
+        this.fields = new Object[shape.expectedFields];
+    }
+
+    /**
+     * Store a value in a field that instances of the current shape don't have yet.
+     * @param next shape of this instance with the field added
+     */
+    void addField(Shape next, Object value) {
+        int slot = next.size - 1;
+        if (slot >= fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(4, fields.length * 2));
+        }
+        if (next.size > next.empty.expectedFields) {
+            next.empty.expectedFields = next.size;
+        }
+        fields[slot] = value;
+        shape = next;
+    }
+
+    @Override
+    public String toString() {
+        return klass.name + " instance";
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.micutio.jynk.interpreter;
+
+import java.util.Arrays;
+
+/**
+ * Hash map of Ynk values that keeps its entries in insertion order. Keys are compared like `==` compares them in
+ * scripts. Maps are not synchronized, so tasks must not change a map while another task uses it.
+ *
+ * Entries are appended to parallel arrays. A separate open-addressing table with linear probing maps hashes to entry
+ * positions, so lookups touch two small arrays instead of chasing nodes. Number keys are compared by the bits of
+ * their double value, without calling `equals`, and string keys by identity first, which settles most lookups of interned strings.
+ * Removed entries stay in the arrays, marked as deleted, until the next rebuild.
+ */
+public final class YnkMap {
+    private static final byte DELETED = 0;
+    private static final byte NUMBER = 1;
+    private static final byte STRING = 2;
+    private static final byte OTHER = 3;
+
+    private static final int EMPTY = -1;
+
+    // open-addressing table of entry positions, its length is a power of two
+    private int[] slots;
+    private int shift;
+
+    private Object[] keys;
+    private Object[] values;
+    private long[] bits;
+    private int[] hashes;
+    private byte[] kinds;
+
+    // entries used, including deleted ones
+    private int count = 0;
+    private int size = 0;
+
+    public YnkMap() {
+        allocate(8);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the value of the key, or `null` if there is none
+     */
+    public Object get(Object key) {
+        int entry = find(key);
+        return entry == EMPTY ? null : values[entry];
+    }
+
+    public boolean containsKey(Object key) {
+        return find(key) != EMPTY;
+    }
+
+    public void put(Object key, Object value) {
+        int entry = find(key);
+        if (entry != EMPTY) {
+            values[entry] = value;
+            return;
+        }
+
+        if (count == keys.length) {
+            allocate(size < keys.length / 2 ? keys.length : keys.length * 2);
+        }
+
+        byte kind = kindOf(key);
+        long keyBits = kind == NUMBER ? Double.doubleToLongBits(Numbers.toDouble(key)) : 0;
+        int hash = hash(kind, key, keyBits);
+        entry = count++;
+        keys[entry] = key;
+        values[entry] = value;
+        bits[entry] = keyBits;
+        hashes[entry] = hash;
+        kinds[entry] = kind;
+        size++;
+        insert(hash, entry);
+    }
+
+    /**
+     * @return whether the map contained the key
+     */
+    public boolean remove(Object key) {
+        int entry = find(key);
+        if (entry == EMPTY) {
+            return false;
+        }
+
+        // the slot keeps pointing at the entry so that probing continues past it
+        kinds[entry] = DELETED;
+        keys[entry] = null;
+        values[entry] = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * @param index position in insertion order, from 0 to `size() - 1`
+     */
+    public Object keyAt(int index) {
+        if (count != size) {
+            allocate(keys.length);
+        }
+        return keys[index];
+    }
+
+    private int find(Object key) {
+        byte kind = kindOf(key);
+        int mask = slots.length - 1;
+
+        if (kind == NUMBER) {
+            long keyBits = Double.doubleToLongBits(Numbers.toDouble(key));
+            for (int slot = index(hash(NUMBER, key, keyBits)); ; slot = (slot + 1) & mask) {
+                int entry = slots[slot];
+                if (entry == EMPTY || (kinds[entry] == NUMBER && bits[entry] == keyBits)) {
+                    return entry;
+                }
+            }
+        }
+
+        int hash = hash(kind, key, 0);
+        for (int slot = index(hash); ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == EMPTY) {
+                return EMPTY;
+            }
+            Object candidate = keys[entry];
+            if (candidate == key || (kinds[entry] == kind && hashes[entry] == hash && candidate.equals(key))) {
+                return entry;
+            }
+        }
+    }
+
+    private void insert(int hash, int entry) {
+        int mask = slots.length - 1;
+        int slot = index(hash);
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry;
+    }
+
+    /**
+     * Rebuild the map with room for the given number of entries, leaving out deleted entries.
+     */
+    private void allocate(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] oldBits = bits;
+        int[] oldHashes = hashes;
+        byte[] oldKinds = kinds;
+        int oldCount = count;
+
+        // at most half of the slots are used, which keeps probe sequences short
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        Arrays.fill(slots, EMPTY);
+        shift = Integer.numberOfLeadingZeros(slots.length - 1);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        bits = new long[capacity];
+        hashes = new int[capacity];
+        kinds = new byte[capacity];
+        count = 0;
+
+        for (int i = 0; i < oldCount; i++) {
+            if (oldKinds[i] != DELETED) {
+                keys[count] = oldKeys[i];
+                values[count] = oldValues[i];
+                bits[count] = oldBits[i];
+                hashes[count] = oldHashes[i];
+                kinds[count] = oldKinds[i];
+                insert(oldHashes[i], count++);
+            }
+        }
+    }
+
+    private int index(int hash) {
+        // Fibonacci hashing spreads hashes that differ only in their high bits, like those of small whole numbers
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+
+    private static byte kindOf(Object key) {
+        if (Numbers.isNumber(key)) {
+            return NUMBER;
+        }
+        return key instanceof String ? STRING : OTHER;
+    }
+
+    private static int hash(byte kind, Object key, long keyBits) {
+        if (kind == NUMBER) {
+            return (int) (keyBits ^ (keyBits >>> 32));
+        }
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        boolean first = true;
+        for (int i = 0; i < count; i++) {
+            if (kinds[i] == DELETED) {
+                continue;
+            }
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            builder.append(Interpreter.stringify(keys[i])).append(": ").append(Interpreter.stringify(values[i]));
+        }
+        return builder.append('}').toString();
+    }
+}
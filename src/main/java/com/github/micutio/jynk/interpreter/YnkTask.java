@@ -0,0 +1,51 @@
+package com.github.micutio.jynk.interpreter;
+
+import com.github.micutio.jynk.RuntimeError;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Handle of a function call that runs concurrently on its own virtual thread, created by `spawn`.
+ * Virtual threads run on a fork-join pool with one carrier thread per core, so CPU-bound tasks spread across all
+ * cores, while tasks waiting on a channel don't block a carrier.
+ */
+class YnkTask {
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    static YnkTask start(Supplier<Object> call) {
+        YnkTask task = new YnkTask();
+        Thread.ofVirtual().name("ynk-task").start(() -> {
+            try {
+                task.result.complete(call.get());
+            } catch (Throwable error) {
+                task.result.completeExceptionally(error);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Wait for the task to finish.
+     * @return the result of the call
+     * @throws RuntimeError the error the task failed with, if any
+     */
+    Object join() {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeError(null, "Interrupted while joining a task.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeError) {
+                throw (RuntimeError) e.getCause();
+            }
+            throw new RuntimeError(null, "Task failed: " + e.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<task>";
+    }
+}
@@ -2,7 +2,7 @@ package com.github.micutio.jynk.lexing;
 
 import static com.github.micutio.jynk.lexing.TokenType.*;
 
-import com.github.micutio.jynk.Ynk;
+import com.github.micutio.jynk.ErrorReporter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -10,6 +10,7 @@ import java.util.Map;
 
 public class Scanner {
     private final String sourceCode;
+    private final ErrorReporter reporter;
     private final List<Token> tokens = new ArrayList<>();
 
     // state variables
@@ -23,6 +24,7 @@ public class Scanner {
     static {
         keywords = new HashMap<>();
         keywords.put("and", AND);
+        keywords.put("break", BREAK);
         keywords.put("class", CLASS);
         keywords.put("else", ELSE);
         keywords.put("false", FALSE);
@@ -33,6 +35,7 @@ public class Scanner {
         keywords.put("or", OR);
         keywords.put("print", PRINT);
         keywords.put("return", RETURN);
+        keywords.put("spawn", SPAWN);
         keywords.put("super", SUPER);
         keywords.put("this", THIS);
         keywords.put("true", TRUE);
@@ -40,8 +43,9 @@ public class Scanner {
         keywords.put("while", WHILE);
     }
 
-    public Scanner(String sourceCode) {
+    public Scanner(String sourceCode, ErrorReporter reporter) {
         this.sourceCode = sourceCode;
+        this.reporter = reporter;
     }
 
     public List<Token> scanTokens() {
@@ -99,7 +103,7 @@ public class Scanner {
                 } else if (isAlpha(c)) {
                     identifier();
                 } else {
-                    Ynk.error(line, "Unexpected character.");
+                    reporter.error(line, "Unexpected character.");
                 }
         }
     }
@@ -114,7 +118,7 @@ public class Scanner {
     }
 
     private void addToken(TokenType type, Object literal) {
-        String text = sourceCode.substring(start, current);
+        String text = StringTable.intern(sourceCode.substring(start, current));
         tokens.add(new Token(type, text, literal, line));
     }
 
@@ -149,7 +153,7 @@ public class Scanner {
 
         // unterminated string
         if (isAtEnd()) {
-            Ynk.error(line, "Unterminated string.");
+            reporter.error(line, "Unterminated string.");
             return;
         }
 
@@ -157,7 +161,7 @@ public class Scanner {
         advance();
 
         // trim the surrounding quotes
-        String value = sourceCode.substring(start + 1, current - 1);
+        String value = StringTable.intern(sourceCode.substring(start + 1, current - 1));
         addToken(STRING, value);
     }
 
@@ -170,6 +174,7 @@ public class Scanner {
      * then look for a decimal point and a fractional part of more digits.
      */
     private void number() {
+        boolean integer = true;
         while (isDigit(peek())) {
             advance();
         }
@@ -178,13 +183,20 @@ public class Scanner {
         if (peek() == '.' && isDigit(peekNext())) {
             // consume the "."
             advance();
+            integer = false;
 
             while (isDigit(peek())) {
                 advance();
             }
         }
 
-        addToken(NUMBER, Double.parseDouble(sourceCode.substring(start, current)));
+        // up to 15 digits are always within the range of integers that doubles represent exactly
+        String text = sourceCode.substring(start, current);
+        if (integer && text.length() <= 15) {
+            addToken(NUMBER, Long.parseLong(text));
+        } else {
+            addToken(NUMBER, Double.parseDouble(text));
+        }
     }
 
     private boolean isAlpha(char c) {
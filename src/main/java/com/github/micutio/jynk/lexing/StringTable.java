@@ -0,0 +1,49 @@
+package com.github.micutio.jynk.lexing;
+
+/**
+ * Canonical instances of strings, so that equal strings are usually the same object and comparisons of names and
+ * string values end at the identity check that `String.equals` starts with. Java strings already cache their hash.
+ *
+ * The scanner interns all lexemes and string literals, the interpreter strings it computes up to
+ * `MAX_COMPUTED_LENGTH` characters. Longer computed strings are rarely compared twice, so interning them would cost
+ * more than it saves. The canonical instances come from `String.intern()`, which only holds them weakly. A fixed-size
+ * cache in front of it makes repeated lookups cheap; entries are replaced on collisions, so it never grows.
+ * Correctness never depends on interning: equality still falls back to comparing characters.
+ *
+ * Interning can be switched off with `-Djynk.intern=false`, and the length limit changed with
+ * `-Djynk.intern.maxlength=<n>`.
+ */
+public final class StringTable {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("jynk.intern"));
+    public static final int MAX_COMPUTED_LENGTH = Integer.getInteger("jynk.intern.maxlength", 32);
+
+    private static final int SIZE = 1 << 14;
+    // written without synchronization, which is safe since strings are immutable
+    private static final String[] cache = new String[SIZE];
+
+    private StringTable() {}
+
+    public static String intern(String string) {
+        if (!ENABLED) {
+            return string;
+        }
+
+        int hash = string.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (SIZE - 1);
+        String cached = cache[index];
+        if (cached != null && (cached == string || cached.equals(string))) {
+            return cached;
+        }
+
+        String canonical = string.intern();
+        cache[index] = canonical;
+        return canonical;
+    }
+
+    /**
+     * Intern a string that was computed at run time, if it is short enough to be worth it.
+     */
+    public static String internComputed(String string) {
+        return string.length() <= MAX_COMPUTED_LENGTH ? intern(string) : string;
+    }
+}
@@ -32,6 +32,7 @@ public enum TokenType {
 
     // keywords
     AND,
+    BREAK,
     CLASS,
     ELSE,
     FALSE,
@@ -42,6 +43,7 @@ public enum TokenType {
     OR,
     PRINT,
     RETURN,
+    SPAWN,
     SUPER,
     THIS,
     TRUE,
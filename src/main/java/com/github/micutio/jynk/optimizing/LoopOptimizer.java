@@ -0,0 +1,543 @@
+package com.github.micutio.jynk.optimizing;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.interpreter.Numbers;
+import com.github.micutio.jynk.lexing.StringTable;
+import com.github.micutio.jynk.lexing.TokenType;
+import com.github.micutio.jynk.parsing.Resolver;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrites the syntax tree so that loops do less work per iteration.
+ * This covers `while` loops as well as `for` loops, which the parser desugars into a `while`.
+ *
+ * - Sub-expressions that consist only of literals are folded into a single literal, unless evaluating them would
+ *   raise an error.
+ * - Pure expressions inside a loop that only read variables the loop never changes are wrapped into an
+ *   `Expr.Invariant`. The interpreter evaluates those once per entry into the loop and re-uses the result.
+ *   Only local variables of the function that runs the loop count, and only if no function or class captures them:
+ *   globals and captured variables may be assigned by any function the loop calls, and by other tasks at any time.
+ * - Updates of an induction variable of the form `i = i + <number>`, like the increment of a `for` loop, are
+ *   reduced to an `Expr.Increment`, which reads and writes the variable with a single scope lookup.
+ *
+ * The optimizer runs on a resolved syntax tree, see `Resolver`, which tells local variables apart from others.
+ */
+public class LoopOptimizer implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    // the innermost loop that is being rewritten, `null` outside of any loop
+    private Loop loop = null;
+    // number of local scopes of the function, or of the top level of the script, that enclose the code being rewritten
+    private int scopes = 0;
+    // names of the variables that functions and classes within the current function capture
+    private Set<String> captured = Set.of();
+
+    /**
+     * @param statements the resolved statements of the script
+     * @return the optimized statements
+     */
+    public List<Stmt> optimize(List<Stmt> statements) {
+        captured = Resolver.captured(statements);
+        return rewrite(statements);
+    }
+
+    private List<Stmt> rewrite(List<Stmt> statements) {
+        List<Stmt> optimized = new ArrayList<>();
+        for (Stmt statement: statements) {
+            optimized.add(rewrite(statement));
+        }
+        // the rewritten tree is kept as long as the script, so its lists should not have room to spare
+        return List.copyOf(optimized);
+    }
+
+    private Stmt rewrite(Stmt stmt) {
+        return stmt == null ? null : stmt.accept(this);
+    }
+
+    /**
+     * Rewrite an expression, hoisting it as a whole if it is loop-invariant.
+     * Only the largest invariant sub-expressions are hoisted, and only if they actually compute something.
+     */
+    private Expr rewrite(Expr expr) {
+        if (loop == null || !loop.isInvariant(expr) || expr instanceof Expr.Literal || expr instanceof Expr.Variable) {
+            return expr.accept(this);
+        }
+
+        Loop current = loop;
+        try {
+            // fold the hoisted expression without looking for further invariants within it
+            loop = null;
+            Expr folded = expr.accept(this);
+            if (folded instanceof Expr.Literal) {
+                return folded;
+            }
+            return new Expr.Invariant(folded, current.invariants++);
+        } finally {
+            loop = current;
+        }
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        scopes++;
+        try {
+            return new Stmt.Block(rewrite(stmt.statements));
+        } finally {
+            scopes--;
+        }
+    }
+
+    @Override
+    public Stmt visitBreakStmt(Stmt.Break stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        List<Stmt.Function> methods = new ArrayList<>();
+        for (Stmt.Function method: stmt.methods) {
+            methods.add((Stmt.Function) visitFunctionStmt(method));
+        }
+        return new Stmt.Class(stmt.name, stmt.superclass, List.copyOf(methods), stmt.shapes, stmt.captures);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return new Stmt.Expression(rewrite(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        // the body runs whenever the function is called, not as part of any loop it is declared in
+        Loop enclosing = loop;
+        int enclosingScopes = scopes;
+        Set<String> enclosingCaptured = captured;
+        try {
+            loop = null;
+            scopes = 1;
+            captured = Resolver.captured(stmt.body);
+            return new Stmt.Function(stmt.name, stmt.params, rewrite(stmt.body), stmt.captures);
+        } finally {
+            loop = enclosing;
+            scopes = enclosingScopes;
+            captured = enclosingCaptured;
+        }
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        return new Stmt.If(rewrite(stmt.condition), rewrite(stmt.thenBranch), rewrite(stmt.elseBranch));
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        return new Stmt.Print(rewrite(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        return stmt.value == null ? stmt : new Stmt.Return(rewrite(stmt.value), stmt.line);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer == null) {
+            return stmt;
+        }
+        return new Stmt.Var(stmt.name, rewrite(stmt.initializer), stmt.line);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        Loop enclosing = loop;
+        try {
+            loop = new Loop(stmt);
+            Expr condition = rewrite(stmt.condition);
+            Stmt body = rewrite(stmt.body);
+            return new Stmt.While(condition, body, loop.invariants);
+        } finally {
+            loop = enclosing;
+        }
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = rewrite(expr.value);
+
+        if (loop != null && value instanceof Expr.Binary) {
+            Expr.Binary binary = (Expr.Binary) value;
+            TokenType operator = binary.operator;
+            boolean isStep = (operator == TokenType.PLUS || operator == TokenType.MINUS)
+                && binary.left instanceof Expr.Variable
+                && ((Expr.Variable) binary.left).name.equals(expr.name)
+                && binary.right instanceof Expr.Literal
+                && Numbers.isNumber(((Expr.Literal) binary.right).value);
+            if (isStep) {
+                return new Expr.Increment(expr.name, operator, ((Expr.Literal) binary.right).value,
+                    binary.line, expr.depth);
+            }
+        }
+
+        return new Expr.Assign(expr.name, value, expr.line, expr.depth);
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+
+        if (left instanceof Expr.Literal && right instanceof Expr.Literal) {
+            Object folded = fold(expr.operator, ((Expr.Literal) left).value, ((Expr.Literal) right).value);
+            if (folded != null) {
+                return new Expr.Literal(folded);
+            }
+        }
+
+        return new Expr.Binary(left, expr.operator, right, expr.line, expr.operands);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        List<Expr> arguments = new ArrayList<>();
+        for (Expr argument: expr.arguments) {
+            arguments.add(rewrite(argument));
+        }
+        return new Expr.Call(rewrite(expr.callee), List.copyOf(arguments), expr.line);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        return new Expr.Get(rewrite(expr.object), expr.name, expr.cache, expr.line);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        Expr expression = rewrite(expr.expression);
+        if (expression instanceof Expr.Literal) {
+            return expression;
+        }
+        return new Expr.Grouping(expression);
+    }
+
+    @Override
+    public Expr visitIncrementExpr(Expr.Increment expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitInvariantExpr(Expr.Invariant expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+
+        if (left instanceof Expr.Literal) {
+            // the left operand decides whether the right one is evaluated at all
+            boolean truthy = isTruthy(((Expr.Literal) left).value);
+            boolean shortCircuits = expr.operator == TokenType.OR ? truthy : !truthy;
+            return shortCircuits ? left : right;
+        }
+
+        return new Expr.Logical(left, expr.operator, right, expr.line);
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        return new Expr.Set(rewrite(expr.object), expr.name, rewrite(expr.value), expr.cache, expr.line);
+    }
+
+    @Override
+    public Expr visitSpawnExpr(Expr.Spawn expr) {
+        return new Expr.Spawn((Expr.Call) visitCallExpr(expr.call), expr.line);
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr right = rewrite(expr.right);
+
+        if (right instanceof Expr.Literal) {
+            Object value = ((Expr.Literal) right).value;
+            if (expr.operator == TokenType.BANG) {
+                return new Expr.Literal(!isTruthy(value));
+            }
+            if (expr.operator == TokenType.MINUS && Numbers.isNumber(value)) {
+                return new Expr.Literal(Numbers.negate(value));
+            }
+        }
+
+        return new Expr.Unary(expr.operator, right, expr.line);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+
+    /**
+     * Evaluate a binary operator on two constants, the same way the interpreter would.
+     * @return the result or `null` if the operation would raise an error and has to be left to the interpreter
+     */
+    private static Object fold(TokenType operator, Object left, Object right) {
+        switch (operator) {
+            case BANG_EQUAL: return !isEqual(left, right);
+            case EQUAL_EQUAL: return isEqual(left, right);
+            case PLUS:
+                if (left instanceof String && right instanceof String) {
+                    return StringTable.internComputed((String) left + (String) right);
+                }
+                break;
+        }
+
+        if (!(Numbers.isNumber(left) && Numbers.isNumber(right))) {
+            return null;
+        }
+
+        switch (operator) {
+            case MINUS:
+            case SLASH:
+            case STAR:
+            case PLUS:
+            case GREATER:
+            case GREATER_EQUAL:
+            case LESS:
+            case LESS_EQUAL:
+                return Numbers.binary(operator, left, right);
+        }
+        return null;
+    }
+
+    private static boolean isEqual(Object a, Object b) {
+        if (a == null && b == null)
+            return true;
+        if (a == null)
+            return false;
+        if (Numbers.isNumber(a) && Numbers.isNumber(b))
+            return Numbers.equal(a, b);
+        return a.equals(b);
+    }
+
+    private static boolean isTruthy(Object object) {
+        if (object == null)
+            return false;
+        if (object instanceof Boolean)
+            return (boolean) object;
+        return true;
+    }
+
+    /**
+     * @return whether no code but the current function can assign the variable
+     */
+    private boolean isPrivate(Expr.Variable variable) {
+        return variable.depth >= 0 && variable.depth < scopes && !captured.contains(variable.name);
+    }
+
+    /**
+     * What a single loop changes, collected from its condition and body before they are rewritten.
+     */
+    private class Loop implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+        // variables that are assigned or declared anywhere within the loop
+        private final Set<String> mutated = new HashSet<>();
+        // number of invariants hoisted so far, each one gets its own slot in the interpreter's cache
+        int invariants = 0;
+
+        Loop(Stmt.While stmt) {
+            stmt.condition.accept(this);
+            stmt.body.accept(this);
+        }
+
+        boolean isInvariant(Expr expr) {
+            if (expr instanceof Expr.Literal) {
+                return true;
+            }
+            if (expr instanceof Expr.Variable) {
+                return isPrivate((Expr.Variable) expr) && !mutated.contains(((Expr.Variable) expr).name);
+            }
+            if (expr instanceof Expr.Grouping) {
+                return isInvariant(((Expr.Grouping) expr).expression);
+            }
+            if (expr instanceof Expr.Unary) {
+                return isInvariant(((Expr.Unary) expr).right);
+            }
+            if (expr instanceof Expr.Binary) {
+                Expr.Binary binary = (Expr.Binary) expr;
+                return isInvariant(binary.left) && isInvariant(binary.right);
+            }
+            if (expr instanceof Expr.Logical) {
+                Expr.Logical logical = (Expr.Logical) expr;
+                return isInvariant(logical.left) && isInvariant(logical.right);
+            }
+            // assignments and calls have side effects, and fields may change without a visible assignment
+            return false;
+        }
+
+        @Override
+        public Void visitBlockStmt(Stmt.Block stmt) {
+            for (Stmt statement: stmt.statements) {
+                statement.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitBreakStmt(Stmt.Break stmt) {
+            return null;
+        }
+
+        @Override
+        public Void visitClassStmt(Stmt.Class stmt) {
+            mutated.add(stmt.name);
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStmt(Stmt.Expression stmt) {
+            return stmt.expression.accept(this);
+        }
+
+        @Override
+        public Void visitFunctionStmt(Stmt.Function stmt) {
+            // the body only matters once the function is called, and can only change variables it captures
+            mutated.add(stmt.name);
+            return null;
+        }
+
+        @Override
+        public Void visitIfStmt(Stmt.If stmt) {
+            stmt.condition.accept(this);
+            stmt.thenBranch.accept(this);
+            if (stmt.elseBranch != null) {
+                stmt.elseBranch.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitPrintStmt(Stmt.Print stmt) {
+            return stmt.expression.accept(this);
+        }
+
+        @Override
+        public Void visitReturnStmt(Stmt.Return stmt) {
+            return stmt.value == null ? null : stmt.value.accept(this);
+        }
+
+        @Override
+        public Void visitVarStmt(Stmt.Var stmt) {
+            mutated.add(stmt.name);
+            if (stmt.initializer != null) {
+                stmt.initializer.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitWhileStmt(Stmt.While stmt) {
+            stmt.condition.accept(this);
+            return stmt.body.accept(this);
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            mutated.add(expr.name);
+            return expr.value.accept(this);
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            expr.left.accept(this);
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            expr.callee.accept(this);
+            for (Expr argument: expr.arguments) {
+                argument.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            return expr.object.accept(this);
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            return expr.expression.accept(this);
+        }
+
+        @Override
+        public Void visitIncrementExpr(Expr.Increment expr) {
+            mutated.add(expr.name);
+            return null;
+        }
+
+        @Override
+        public Void visitInvariantExpr(Expr.Invariant expr) {
+            return expr.expression.accept(this);
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            expr.left.accept(this);
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public Void visitSetExpr(Expr.Set expr) {
+            expr.object.accept(this);
+            return expr.value.accept(this);
+        }
+
+        @Override
+        public Void visitSpawnExpr(Expr.Spawn expr) {
+            return expr.call.accept(this);
+        }
+
+        @Override
+        public Void visitSuperExpr(Expr.Super expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            return expr.right.accept(this);
+        }
+
+        @Override
+        public Void visitVariableExpr(Expr.Variable expr) {
+            return null;
+        }
+    }
+}
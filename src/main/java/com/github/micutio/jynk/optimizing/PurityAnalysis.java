@@ -0,0 +1,254 @@
+package com.github.micutio.jynk.optimizing;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.parsing.Resolver;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides whether a function is pure: whether its result depends only on its arguments, and calling it has no effects
+ * besides returning the result. Calls of a pure function may be replaced by an earlier result for the same arguments,
+ * see the native `memoize`.
+ *
+ * The analysis works on the resolved body of the function and is conservative. A pure function only reads and writes
+ * its parameters and local variables, and only calls itself, by the name it was declared with. It does not print,
+ * spawn tasks, use properties or declare functions or classes. Reading any other variable makes a function impure,
+ * since it could be assigned between two calls, and so does calling any other function, since its purity cannot be
+ * known before the script runs.
+ *
+ * The name of the function is looked up when it is called, and may be assigned another function in the meantime. So
+ * `bindRecursion` gives a copy of a pure function whose calls of itself read its name from the closure of the function
+ * instead, where `memoize` defines the name as the memoized function.
+ */
+public final class PurityAnalysis implements Expr.Visitor<String>, Stmt.Visitor<String> {
+    private final String name;
+    // whether the function captures its own name, because it is declared in a local scope, rather than a global
+    private final boolean capturesItself;
+    // number of local scopes of the function that enclose the code being analyzed
+    private int scopes = 1;
+    // calls of the function itself, by node identity
+    private final Set<Expr.Call> recursiveCalls = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private PurityAnalysis(Stmt.Function function) {
+        this.name = function.name;
+        this.capturesItself = function.captures != null
+            && function.captures.stream().anyMatch(variable -> variable.name.equals(function.name));
+    }
+
+    /**
+     * @param function a function of a resolved syntax tree
+     * @return why the function is not pure, or `null` if it is pure
+     */
+    public static String impurity(Stmt.Function function) {
+        return new PurityAnalysis(function).analyze(function.body);
+    }
+
+    /**
+     * @param function a pure function of a resolved syntax tree
+     * @return the calls of the function of itself
+     */
+    public static Set<Expr.Call> recursiveCalls(Stmt.Function function) {
+        PurityAnalysis analysis = new PurityAnalysis(function);
+        if (analysis.analyze(function.body) != null) {
+            throw new IllegalArgumentException("Function '" + function.name + "' is not pure.");
+        }
+        return analysis.recursiveCalls;
+    }
+
+    /**
+     * @param function a pure function of a resolved syntax tree
+     * @return a copy of the function that reads its own name from its closure, which has to define it, when it calls
+     *     itself
+     */
+    public static Stmt.Function bindRecursion(Stmt.Function function) {
+        return new RecursionBinder(recursiveCalls(function)).bind(function);
+    }
+
+    private String analyze(List<Stmt> statements) {
+        for (Stmt statement: statements) {
+            String impurity = analyze(statement);
+            if (impurity != null) {
+                return impurity;
+            }
+        }
+        return null;
+    }
+
+    private String analyze(Stmt stmt) {
+        return stmt == null ? null : stmt.accept(this);
+    }
+
+    private String analyze(Expr expr) {
+        return expr == null ? null : expr.accept(this);
+    }
+
+    private String analyze(Expr first, Expr second) {
+        String impurity = analyze(first);
+        return impurity != null ? impurity : analyze(second);
+    }
+
+    private boolean isLocal(int depth) {
+        return depth >= 0 && depth < scopes;
+    }
+
+    @Override
+    public String visitBlockStmt(Stmt.Block stmt) {
+        scopes++;
+        try {
+            return analyze(stmt.statements);
+        } finally {
+            scopes--;
+        }
+    }
+
+    @Override
+    public String visitBreakStmt(Stmt.Break stmt) {
+        return null;
+    }
+
+    @Override
+    public String visitClassStmt(Stmt.Class stmt) {
+        return "it declares class '" + stmt.name + "'";
+    }
+
+    @Override
+    public String visitExpressionStmt(Stmt.Expression stmt) {
+        return analyze(stmt.expression);
+    }
+
+    @Override
+    public String visitFunctionStmt(Stmt.Function stmt) {
+        return "it declares function '" + stmt.name + "'";
+    }
+
+    @Override
+    public String visitIfStmt(Stmt.If stmt) {
+        String impurity = analyze(stmt.condition);
+        if (impurity == null) {
+            impurity = analyze(stmt.thenBranch);
+        }
+        return impurity != null ? impurity : analyze(stmt.elseBranch);
+    }
+
+    @Override
+    public String visitPrintStmt(Stmt.Print stmt) {
+        return "it prints";
+    }
+
+    @Override
+    public String visitReturnStmt(Stmt.Return stmt) {
+        return analyze(stmt.value);
+    }
+
+    @Override
+    public String visitVarStmt(Stmt.Var stmt) {
+        return analyze(stmt.initializer);
+    }
+
+    @Override
+    public String visitWhileStmt(Stmt.While stmt) {
+        String impurity = analyze(stmt.condition);
+        return impurity != null ? impurity : analyze(stmt.body);
+    }
+
+    @Override
+    public String visitAssignExpr(Expr.Assign expr) {
+        if (!isLocal(expr.depth)) {
+            return "it assigns '" + expr.name + "', which is not one of its local variables";
+        }
+        return analyze(expr.value);
+    }
+
+    @Override
+    public String visitBinaryExpr(Expr.Binary expr) {
+        return analyze(expr.left, expr.right);
+    }
+
+    @Override
+    public String visitCallExpr(Expr.Call expr) {
+        // a call of the function itself: its name bound to the global or the captured variable it was declared as
+        boolean isRecursive = expr.callee instanceof Expr.Variable
+            && ((Expr.Variable) expr.callee).name.equals(name)
+            && ((Expr.Variable) expr.callee).depth == (capturesItself ? scopes : Resolver.GLOBAL);
+        if (!isRecursive) {
+            return "it calls other functions";
+        }
+        recursiveCalls.add(expr);
+        for (Expr argument: expr.arguments) {
+            String impurity = analyze(argument);
+            if (impurity != null) {
+                return impurity;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String visitGetExpr(Expr.Get expr) {
+        return "it reads property '" + expr.name + "'";
+    }
+
+    @Override
+    public String visitGroupingExpr(Expr.Grouping expr) {
+        return analyze(expr.expression);
+    }
+
+    @Override
+    public String visitIncrementExpr(Expr.Increment expr) {
+        if (!isLocal(expr.depth)) {
+            return "it assigns '" + expr.name + "', which is not one of its local variables";
+        }
+        return null;
+    }
+
+    @Override
+    public String visitInvariantExpr(Expr.Invariant expr) {
+        return analyze(expr.expression);
+    }
+
+    @Override
+    public String visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public String visitLogicalExpr(Expr.Logical expr) {
+        return analyze(expr.left, expr.right);
+    }
+
+    @Override
+    public String visitSetExpr(Expr.Set expr) {
+        return "it assigns property '" + expr.name + "'";
+    }
+
+    @Override
+    public String visitSpawnExpr(Expr.Spawn expr) {
+        return "it spawns tasks";
+    }
+
+    @Override
+    public String visitSuperExpr(Expr.Super expr) {
+        return "it uses 'super'";
+    }
+
+    @Override
+    public String visitThisExpr(Expr.This expr) {
+        return "it uses 'this'";
+    }
+
+    @Override
+    public String visitUnaryExpr(Expr.Unary expr) {
+        return analyze(expr.right);
+    }
+
+    @Override
+    public String visitVariableExpr(Expr.Variable expr) {
+        if (!isLocal(expr.depth)) {
+            return "it reads '" + expr.name + "', which is not one of its local variables";
+        }
+        return null;
+    }
+}
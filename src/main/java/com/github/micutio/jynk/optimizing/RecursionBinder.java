@@ -0,0 +1,187 @@
+package com.github.micutio.jynk.optimizing;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.Stmt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Copies the body of a pure function, so that its calls of itself read the name of the function from its closure, see
+ * `PurityAnalysis.bindRecursion`. The closure is the scope right outside of the local scopes of the function, so the
+ * depth of the name at each call is the number of local scopes around the call.
+ *
+ * Only the statements and expressions that a pure function may contain are copied.
+ */
+final class RecursionBinder implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    private final Set<Expr.Call> recursiveCalls;
+    // number of local scopes of the function that enclose the code being copied
+    private int scopes = 1;
+
+    RecursionBinder(Set<Expr.Call> recursiveCalls) {
+        this.recursiveCalls = recursiveCalls;
+    }
+
+    Stmt.Function bind(Stmt.Function function) {
+        return new Stmt.Function(function.name, function.params, copy(function.body), function.captures);
+    }
+
+    private List<Stmt> copy(List<Stmt> statements) {
+        List<Stmt> copied = new ArrayList<>();
+        for (Stmt statement: statements) {
+            copied.add(copy(statement));
+        }
+        return List.copyOf(copied);
+    }
+
+    private Stmt copy(Stmt stmt) {
+        return stmt == null ? null : stmt.accept(this);
+    }
+
+    private Expr copy(Expr expr) {
+        return expr == null ? null : expr.accept(this);
+    }
+
+    private static IllegalArgumentException impure(String node) {
+        return new IllegalArgumentException("A pure function cannot contain " + node + ".");
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        scopes++;
+        try {
+            return new Stmt.Block(copy(stmt.statements));
+        } finally {
+            scopes--;
+        }
+    }
+
+    @Override
+    public Stmt visitBreakStmt(Stmt.Break stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        throw impure("classes");
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return new Stmt.Expression(copy(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        throw impure("functions");
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        return new Stmt.If(copy(stmt.condition), copy(stmt.thenBranch), copy(stmt.elseBranch));
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        throw impure("'print'");
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        return new Stmt.Return(copy(stmt.value), stmt.line);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        return new Stmt.Var(stmt.name, copy(stmt.initializer), stmt.line);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        return new Stmt.While(copy(stmt.condition), copy(stmt.body), stmt.invariants);
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        return new Expr.Assign(expr.name, copy(expr.value), expr.line, expr.depth);
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        return new Expr.Binary(copy(expr.left), expr.operator, copy(expr.right), expr.line, expr.operands);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        List<Expr> arguments = new ArrayList<>();
+        for (Expr argument: expr.arguments) {
+            arguments.add(copy(argument));
+        }
+        Expr callee = copy(expr.callee);
+        if (recursiveCalls.contains(expr)) {
+            Expr.Variable variable = (Expr.Variable) expr.callee;
+            callee = new Expr.Variable(variable.name, variable.line, scopes);
+        }
+        return new Expr.Call(callee, List.copyOf(arguments), expr.line);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        throw impure("property reads");
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return new Expr.Grouping(copy(expr.expression));
+    }
+
+    @Override
+    public Expr visitIncrementExpr(Expr.Increment expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitInvariantExpr(Expr.Invariant expr) {
+        return new Expr.Invariant(copy(expr.expression), expr.slot);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        return new Expr.Logical(copy(expr.left), expr.operator, copy(expr.right), expr.line);
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        throw impure("property assignments");
+    }
+
+    @Override
+    public Expr visitSpawnExpr(Expr.Spawn expr) {
+        throw impure("'spawn'");
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        throw impure("'super'");
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        throw impure("'this'");
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        return new Expr.Unary(expr.operator, copy(expr.right), expr.line);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+}
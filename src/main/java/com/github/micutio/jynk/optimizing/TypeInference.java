@@ -0,0 +1,471 @@
+package com.github.micutio.jynk.optimizing;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.ast.ValueType;
+import com.github.micutio.jynk.interpreter.Numbers;
+import com.github.micutio.jynk.lexing.TokenType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Proves the types of the operands of binary expressions before the script runs, so that the interpreter can skip
+ * checking them, see `Expr.Binary.operands`. Works on a resolved syntax tree.
+ *
+ * The inference follows the flow of the program through the local variables of each function body: it knows the type
+ * of every local variable at every point, from the literals and operators that the values assigned to it come from.
+ * Where control flow merges, after an `if`, a `break` or at the head of a loop, a variable keeps its type only if it
+ * has that type on all paths. Loops are analyzed again until the types at their head no longer change.
+ *
+ * Only what can never change behind the back of a function body is tracked. Global variables could be assigned by any
+ * call or task, and local variables that a closure captures by the closure, so both are assumed to hold any value.
+ * Parameters, fields and the results of calls hold any value, too.
+ */
+public class TypeInference implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    // types of the local variables at the current point of the function body, top-level code starts without scopes
+    private State state = new State();
+    // local variables of the function body that closures capture, by name
+    private Set<String> captured;
+    // states at the `break` statements of the innermost loop
+    private List<State> breaks = null;
+    // type of the expression that was rewritten last
+    private ValueType type = ValueType.ANY;
+
+    public List<Stmt> infer(List<Stmt> statements) {
+        captured = capturedIn(statements);
+        return rewrite(statements);
+    }
+
+    private List<Stmt> rewrite(List<Stmt> statements) {
+        List<Stmt> rewritten = new ArrayList<>();
+        for (Stmt statement: statements) {
+            rewritten.add(rewrite(statement));
+        }
+        return List.copyOf(rewritten);
+    }
+
+    private Stmt rewrite(Stmt stmt) {
+        return stmt == null ? null : stmt.accept(this);
+    }
+
+    private Expr rewrite(Expr expr) {
+        return expr.accept(this);
+    }
+
+    /**
+     * @return the names of all variables captured by functions and classes declared in the statements
+     */
+    private static Set<String> capturedIn(List<Stmt> statements) {
+        Set<String> names = new HashSet<>();
+        for (Stmt statement: statements) {
+            capturedIn(statement, names);
+        }
+        return names;
+    }
+
+    private static void capturedIn(Stmt stmt, Set<String> names) {
+        // nested closures capture through the closures around them, so their own captures can be left out
+        if (stmt instanceof Stmt.Function) {
+            for (Expr.Variable variable: ((Stmt.Function) stmt).captures) {
+                names.add(variable.name);
+            }
+        } else if (stmt instanceof Stmt.Class) {
+            for (Expr.Variable variable: ((Stmt.Class) stmt).captures) {
+                names.add(variable.name);
+            }
+        } else if (stmt instanceof Stmt.Block) {
+            for (Stmt statement: ((Stmt.Block) stmt).statements) {
+                capturedIn(statement, names);
+            }
+        } else if (stmt instanceof Stmt.If) {
+            capturedIn(((Stmt.If) stmt).thenBranch, names);
+            if (((Stmt.If) stmt).elseBranch != null) {
+                capturedIn(((Stmt.If) stmt).elseBranch, names);
+            }
+        } else if (stmt instanceof Stmt.While) {
+            capturedIn(((Stmt.While) stmt).body, names);
+        }
+    }
+
+    private static ValueType typeOf(Object value) {
+        if (value == null) {
+            return ValueType.NIL;
+        }
+        if (Numbers.isNumber(value)) {
+            return ValueType.NUMBER;
+        }
+        if (value instanceof String) {
+            return ValueType.STRING;
+        }
+        if (value instanceof Boolean) {
+            return ValueType.BOOLEAN;
+        }
+        return ValueType.ANY;
+    }
+
+    /**
+     * Record the type of a value assigned to a variable, unless it is global or captured.
+     */
+    private void assign(String name, int depth, ValueType value) {
+        Map<String, ValueType> scope = state.scope(depth);
+        if (scope != null) {
+            scope.put(name, captured.contains(name) ? ValueType.ANY : value);
+        }
+    }
+
+    private void declare(String name, ValueType value) {
+        assign(name, 0, value);
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        state.scopes.add(new HashMap<>());
+        try {
+            return new Stmt.Block(rewrite(stmt.statements));
+        } finally {
+            state.scopes.remove(state.scopes.size() - 1);
+        }
+    }
+
+    @Override
+    public Stmt visitBreakStmt(Stmt.Break stmt) {
+        breaks.add(state.copy());
+        state.reachable = false;
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        Expr.Variable superclass = null;
+        if (stmt.superclass != null) {
+            superclass = (Expr.Variable) rewrite(stmt.superclass);
+        }
+        declare(stmt.name, ValueType.ANY);
+
+        List<Stmt.Function> methods = new ArrayList<>();
+        for (Stmt.Function method: stmt.methods) {
+            methods.add(function(method));
+        }
+        return new Stmt.Class(stmt.name, superclass, List.copyOf(methods), stmt.shapes, stmt.captures);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return new Stmt.Expression(rewrite(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        declare(stmt.name, ValueType.ANY);
+        return function(stmt);
+    }
+
+    /**
+     * Infer the types in the body of a function, which starts out knowing nothing about its parameters.
+     */
+    private Stmt.Function function(Stmt.Function stmt) {
+        State enclosingState = state;
+        Set<String> enclosingCaptured = captured;
+        List<State> enclosingBreaks = breaks;
+        try {
+            state = new State();
+            state.scopes.add(new HashMap<>());
+            captured = capturedIn(stmt.body);
+            breaks = null;
+            return new Stmt.Function(stmt.name, stmt.params, rewrite(stmt.body), stmt.captures);
+        } finally {
+            state = enclosingState;
+            captured = enclosingCaptured;
+            breaks = enclosingBreaks;
+        }
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        Expr condition = rewrite(stmt.condition);
+        State otherwise = state.copy();
+        Stmt thenBranch = rewrite(stmt.thenBranch);
+        State then = state;
+        state = otherwise;
+        Stmt elseBranch = rewrite(stmt.elseBranch);
+        state = then.join(state);
+        return new Stmt.If(condition, thenBranch, elseBranch);
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        return new Stmt.Print(rewrite(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        Expr value = stmt.value == null ? null : rewrite(stmt.value);
+        state.reachable = false;
+        return new Stmt.Return(value, stmt.line);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        Expr initializer = null;
+        ValueType value = ValueType.NIL;
+        if (stmt.initializer != null) {
+            initializer = rewrite(stmt.initializer);
+            value = type;
+        }
+        declare(stmt.name, value);
+        return new Stmt.Var(stmt.name, initializer, stmt.line);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        List<State> enclosingBreaks = breaks;
+        try {
+            // widen the types at the head of the loop until an iteration of the body keeps them as they are, only the
+            // tree rewritten in the last round is kept
+            State head = state;
+            while (true) {
+                breaks = new ArrayList<>();
+                state = head.copy();
+                Expr condition = rewrite(stmt.condition);
+                State exit = state.copy();
+                Stmt body = rewrite(stmt.body);
+                State next = head.join(state);
+                if (next.equals(head)) {
+                    for (State broken: breaks) {
+                        exit = exit.join(broken);
+                    }
+                    state = exit;
+                    return new Stmt.While(condition, body, stmt.invariants);
+                }
+                head = next;
+            }
+        } finally {
+            breaks = enclosingBreaks;
+        }
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = rewrite(expr.value);
+        assign(expr.name, expr.depth, type);
+        return new Expr.Assign(expr.name, value, expr.line, expr.depth);
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = rewrite(expr.left);
+        ValueType leftType = type;
+        Expr right = rewrite(expr.right);
+        ValueType rightType = type;
+
+        ValueType operands = leftType == rightType ? leftType : ValueType.ANY;
+        switch (expr.operator) {
+            case PLUS:
+                if (operands != ValueType.NUMBER && operands != ValueType.STRING) {
+                    operands = ValueType.ANY;
+                }
+                // the sum of a number and anything else is a number, if it is anything at all, and so for strings
+                if (leftType == ValueType.NUMBER || rightType == ValueType.NUMBER) {
+                    type = ValueType.NUMBER;
+                } else if (leftType == ValueType.STRING || rightType == ValueType.STRING) {
+                    type = ValueType.STRING;
+                } else {
+                    type = ValueType.ANY;
+                }
+                break;
+            case MINUS:
+            case SLASH:
+            case STAR:
+                if (operands != ValueType.NUMBER) {
+                    operands = ValueType.ANY;
+                }
+                type = ValueType.NUMBER;
+                break;
+            case EQUAL_EQUAL:
+            case BANG_EQUAL:
+                if (operands != ValueType.NUMBER && operands != ValueType.STRING) {
+                    operands = ValueType.ANY;
+                }
+                type = ValueType.BOOLEAN;
+                break;
+            default:
+                // comparisons
+                if (operands != ValueType.NUMBER) {
+                    operands = ValueType.ANY;
+                }
+                type = ValueType.BOOLEAN;
+        }
+        return new Expr.Binary(left, expr.operator, right, expr.line, operands);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        Expr callee = rewrite(expr.callee);
+        List<Expr> arguments = new ArrayList<>();
+        for (Expr argument: expr.arguments) {
+            arguments.add(rewrite(argument));
+        }
+        type = ValueType.ANY;
+        return new Expr.Call(callee, List.copyOf(arguments), expr.line);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        Expr object = rewrite(expr.object);
+        type = ValueType.ANY;
+        return new Expr.Get(object, expr.name, expr.cache, expr.line);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return new Expr.Grouping(rewrite(expr.expression));
+    }
+
+    @Override
+    public Expr visitIncrementExpr(Expr.Increment expr) {
+        // the variable must already have held a number for the increment to succeed
+        assign(expr.name, expr.depth, ValueType.NUMBER);
+        type = ValueType.NUMBER;
+        return expr;
+    }
+
+    @Override
+    public Expr visitInvariantExpr(Expr.Invariant expr) {
+        return new Expr.Invariant(rewrite(expr.expression), expr.slot);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        type = typeOf(expr.value);
+        return expr;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr left = rewrite(expr.left);
+        ValueType leftType = type;
+        // the right operand is not always evaluated
+        State skipped = state.copy();
+        Expr right = rewrite(expr.right);
+        state = skipped.join(state);
+        type = leftType.join(type);
+        return new Expr.Logical(left, expr.operator, right, expr.line);
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        Expr object = rewrite(expr.object);
+        Expr value = rewrite(expr.value);
+        type = ValueType.ANY;
+        return new Expr.Set(object, expr.name, value, expr.cache, expr.line);
+    }
+
+    @Override
+    public Expr visitSpawnExpr(Expr.Spawn expr) {
+        Expr.Call call = (Expr.Call) visitCallExpr(expr.call);
+        type = ValueType.ANY;
+        return new Expr.Spawn(call, expr.line);
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        type = ValueType.ANY;
+        return expr;
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        type = ValueType.ANY;
+        return expr;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr right = rewrite(expr.right);
+        type = expr.operator == TokenType.MINUS ? ValueType.NUMBER : ValueType.BOOLEAN;
+        return new Expr.Unary(expr.operator, right, expr.line);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        Map<String, ValueType> scope = state.scope(expr.depth);
+        ValueType known = scope == null ? null : scope.get(expr.name);
+        type = known == null ? ValueType.ANY : known;
+        return expr;
+    }
+
+    /**
+     * Types of the local variables at one point of a function body, in the local scopes that enclose it.
+     */
+    private static final class State {
+        // innermost scope last, like in the `Resolver`
+        final List<Map<String, ValueType>> scopes = new ArrayList<>();
+        // whether the point can be reached at all, code after a `return` or `break` cannot
+        boolean reachable = true;
+
+        /**
+         * @return the scope of a variable of the given depth, or `null` if it is not a local variable of the body
+         */
+        Map<String, ValueType> scope(int depth) {
+            if (depth < 0 || depth >= scopes.size()) {
+                return null;
+            }
+            return scopes.get(scopes.size() - 1 - depth);
+        }
+
+        State copy() {
+            State copy = new State();
+            for (Map<String, ValueType> scope: scopes) {
+                copy.scopes.add(new HashMap<>(scope));
+            }
+            copy.reachable = reachable;
+            return copy;
+        }
+
+        /**
+         * Merge two points that continue at the same place. Scopes that only one of them is in, like those of the
+         * block that a `break` leaves, are dropped.
+         */
+        State join(State other) {
+            State joined = new State();
+            joined.reachable = reachable || other.reachable;
+            int depth = Math.min(scopes.size(), other.scopes.size());
+            for (int i = 0; i < depth; i++) {
+                Map<String, ValueType> scope = scopes.get(i);
+                Map<String, ValueType> otherScope = other.scopes.get(i);
+                if (!other.reachable) {
+                    joined.scopes.add(new HashMap<>(scope));
+                } else if (!reachable) {
+                    joined.scopes.add(new HashMap<>(otherScope));
+                } else {
+                    Map<String, ValueType> merged = new HashMap<>();
+                    for (Map.Entry<String, ValueType> entry: scope.entrySet()) {
+                        ValueType otherType = otherScope.get(entry.getKey());
+                        ValueType joinedType = otherType == null ? ValueType.ANY : entry.getValue().join(otherType);
+                        merged.put(entry.getKey(), joinedType);
+                    }
+                    for (String name: otherScope.keySet()) {
+                        merged.putIfAbsent(name, ValueType.ANY);
+                    }
+                    joined.scopes.add(merged);
+                }
+            }
+            return joined;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State && reachable == ((State) other).reachable
+                && scopes.equals(((State) other).scopes);
+        }
+
+        @Override
+        public int hashCode() {
+            return scopes.hashCode();
+        }
+    }
+}
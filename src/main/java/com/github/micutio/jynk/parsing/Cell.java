@@ -0,0 +1,14 @@
+package com.github.micutio.jynk.parsing;
+
+/**
+ * Holder of a local variable that a closure has captured, see `Environment.capture()`.
+ * The scope that declared the variable and every closure that captured it share the cell, so they all see the same
+ * value.
+ */
+final class Cell {
+    Object value;
+
+    Cell(Object value) {
+        this.value = value;
+    }
+}
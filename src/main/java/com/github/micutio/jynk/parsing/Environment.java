@@ -1,36 +1,103 @@
 package com.github.micutio.jynk.parsing;
 
 import com.github.micutio.jynk.RuntimeError;
-import com.github.micutio.jynk.lexing.Token;
+import com.github.micutio.jynk.RuntimeStats;
 import java.util.HashMap;
 import java.util.Map;
 
 public class Environment {
     final Environment enclosing;
 
-    private final Map<String, Object> values = new HashMap<>();
+    final Map<String, Object> values;
 
     public Environment() {
-        enclosing = null;
+        this(new HashMap<>());
+    }
+
+    /**
+     * Create an outermost scope that keeps its variables in the given map, see `GlobalEnvironment`.
+     */
+    Environment(Map<String, Object> values) {
+        this.enclosing = null;
+        this.values = values;
     }
 
     public Environment(Environment enclosing) {
         this.enclosing = enclosing;
+        this.values = new HashMap<>();
+        if (RuntimeStats.ENABLED) {
+            RuntimeStats.environment();
+        }
+    }
+
+    /**
+     * Count the enclosing scopes that have to be walked to find the given variable, for statistics.
+     * @param name Name of the variable
+     * @return the number of scopes walked or -1 if the variable is not defined anywhere
+     */
+    public int depthOf(String name) {
+        int depth = 0;
+        for (Environment scope = this; scope != null; scope = scope.enclosing) {
+            if (scope.defines(name)) {
+                return depth;
+            }
+            depth++;
+        }
+        return -1;
+    }
+
+    boolean defines(String name) {
+        return values.containsKey(name);
     }
 
     public void define(String name, Object value) {
-        values.put(name, value);
+        Object previous = values.put(name, value);
+        // a variable that was captured before its declaration ran, like a recursive function, keeps its cell
+        if (previous instanceof Cell) {
+            ((Cell) previous).value = value;
+            values.put(name, previous);
+        }
+    }
+
+    /**
+     * @param line source line to report if the variable is not defined
+     */
+    public Object get(String name, int line) {
+        if (values.containsKey(name)) {
+            return unwrap(values.get(name));
+        }
+
+        if (enclosing != null)
+            return enclosing.get(name, line);
+
+        throw new RuntimeError(line, "Undefined variable '" + name + "'.");
     }
 
-    public Object get(Token name) {
-        if (values.containsKey(name.lexeme)) {
-            return values.get(name.lexeme);
+    /**
+     * Find the innermost scope, starting with this one, that defines the given variable.
+     * Lets callers read and update a variable with a single walk of the scope chain.
+     * @param name Name of the variable
+     * @param line source line to report if the variable is not defined
+     * @return the defining scope
+     */
+    public Environment scopeOf(String name, int line) {
+        if (values.containsKey(name)) {
+            return this;
         }
 
         if (enclosing != null)
-            return enclosing.get(name);
+            return enclosing.scopeOf(name, line);
 
-        throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
+        throw new RuntimeError(line, "Undefined variable '" + name + "'.");
+    }
+
+    /**
+     * Get a variable of this scope only, without consulting any enclosing scope.
+     * @param name Name of the variable
+     * @return the value or `null` if the variable is nil or not defined here
+     */
+    public Object getLocal(String name) {
+        return unwrap(values.get(name));
     }
 
     /**
@@ -38,18 +105,73 @@ public class Environment {
      * Innermost scopes have priority to allow for shadowing.
      * @param name Name of the variable
      * @param value New value of the variable
+     * @param line source line to report if the variable is not defined
      */
-    public void assign(Token name, Object value) {
-        if (values.containsKey(name.lexeme)) {
-            values.put(name.lexeme, value);
+    public void assign(String name, Object value, int line) {
+        if (values.containsKey(name)) {
+            assignLocal(name, value);
             return;
         }
 
         if (enclosing != null) {
-            enclosing.assign(name, value);
+            enclosing.assign(name, value, line);
             return;
         }
 
-        throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
+        throw new RuntimeError(line, "Undefined variable '" + name + "'.");
+    }
+
+    /**
+     * @param depth number of enclosing scopes to skip, as computed by the `Resolver`
+     */
+    public Environment ancestor(int depth) {
+        Environment scope = this;
+        for (int i = 0; i < depth; i++) {
+            scope = scope.enclosing;
+        }
+        return scope;
+    }
+
+    /**
+     * Get a variable that the `Resolver` found the given number of scopes up, without searching for it.
+     */
+    public Object getAt(int depth, String name) {
+        return ancestor(depth).getLocal(name);
+    }
+
+    /**
+     * Assign a variable that the `Resolver` found the given number of scopes up, without searching for it.
+     */
+    public void assignAt(int depth, String name, Object value) {
+        ancestor(depth).assignLocal(name, value);
+    }
+
+    /**
+     * Define a variable of this scope that is shared with the variable of `scope` `depth` levels up, so that
+     * assignments through either scope are seen by both. Closures capture the variables they use this way, instead of
+     * keeping the whole chain of enclosing scopes alive.
+     * If the variable has not been declared yet, it is nil until its declaration runs.
+     */
+    public void capture(String name, Environment scope, int depth) {
+        Environment owner = scope.ancestor(depth);
+        Object value = owner.values.get(name);
+        if (!(value instanceof Cell)) {
+            value = new Cell(value);
+            owner.values.put(name, value);
+        }
+        values.put(name, value);
+    }
+
+    private void assignLocal(String name, Object value) {
+        Object current = values.get(name);
+        if (current instanceof Cell) {
+            ((Cell) current).value = value;
+        } else {
+            values.put(name, value);
+        }
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof Cell ? ((Cell) value).value : value;
     }
 }
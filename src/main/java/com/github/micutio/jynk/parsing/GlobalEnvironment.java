@@ -0,0 +1,70 @@
+package com.github.micutio.jynk.parsing;
+
+import com.github.micutio.jynk.RuntimeError;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The outermost scope of an interpreter, which may be shared by tasks running on several threads.
+ * Reads don't take any lock. Writes lock only the hash bin of the variable, or use a CAS if the bin is empty, so they
+ * don't block reads or writes of other variables.
+ */
+public class GlobalEnvironment extends Environment {
+    // `ConcurrentHashMap` doesn't take null values, so nil is stored as this placeholder
+    private static final Object NIL = new Object();
+
+    public GlobalEnvironment() {
+        super(new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public void define(String name, Object value) {
+        values.put(name, value == null ? NIL : value);
+    }
+
+    @Override
+    public Object get(String name, int line) {
+        Object value = values.get(name);
+        if (value == null) {
+            throw new RuntimeError(line, "Undefined variable '" + name + "'.");
+        }
+        return value == NIL ? null : value;
+    }
+
+    @Override
+    public Environment scopeOf(String name, int line) {
+        if (values.containsKey(name)) {
+            return this;
+        }
+
+        throw new RuntimeError(line, "Undefined variable '" + name + "'.");
+    }
+
+    @Override
+    public Object getLocal(String name) {
+        Object value = values.get(name);
+        return value == NIL ? null : value;
+    }
+
+    @Override
+    boolean defines(String name) {
+        return values.containsKey(name);
+    }
+
+    /**
+     * Assign an existing variable, atomically with respect to concurrent definitions.
+     */
+    @Override
+    public void assign(String name, Object value, int line) {
+        if (values.replace(name, value == null ? NIL : value) == null) {
+            throw new RuntimeError(line, "Undefined variable '" + name + "'.");
+        }
+    }
+
+    /**
+     * Visit all global variables. Concurrent changes may or may not be seen.
+     */
+    public void forEach(BiConsumer<String, Object> action) {
+        values.forEach((name, value) -> action.accept(name, value == NIL ? null : value));
+    }
+}
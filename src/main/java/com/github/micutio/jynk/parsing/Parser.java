@@ -2,9 +2,11 @@ package com.github.micutio.jynk.parsing;
 
 import static com.github.micutio.jynk.lexing.TokenType.*;
 
-import com.github.micutio.jynk.Ynk;
+import com.github.micutio.jynk.ErrorReporter;
 import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.InlineCache;
 import com.github.micutio.jynk.ast.Stmt;
+import com.github.micutio.jynk.ast.ValueType;
 import com.github.micutio.jynk.lexing.Token;
 import com.github.micutio.jynk.lexing.TokenType;
 import java.util.ArrayList;
@@ -13,9 +15,16 @@ import java.util.List;
 
 public class Parser {
     private final List<Token> tokens;
+    private final ErrorReporter reporter;
     private int current = 0;
-    public Parser(List<Token> tokens) {
+    // where `return` and `break` are allowed: functions, initializers, which cannot return a value, and loops
+    private boolean inFunction = false;
+    private boolean inInitializer = false;
+    private int loopDepth = 0;
+
+    public Parser(List<Token> tokens, ErrorReporter reporter) {
         this.tokens = tokens;
+        this.reporter = reporter;
     }
 
     public List<Stmt> parse() {
@@ -33,6 +42,10 @@ public class Parser {
 
     private Stmt declaration() {
         try {
+            if (match(CLASS))
+                return classDeclaration();
+            if (match(FUN))
+                return function("function");
             if (match(VAR))
                 return varDeclaration();
 
@@ -43,13 +56,37 @@ public class Parser {
         }
     }
 
+    private Stmt classDeclaration() {
+        Token name = consume(IDENTIFIER, "Expect class name.");
+
+        Expr.Variable superclass = null;
+        if (match(LESS)) {
+            Token superclassName = consume(IDENTIFIER, "Expect superclass name.");
+            superclass = new Expr.Variable(superclassName.lexeme, superclassName.line, Resolver.UNRESOLVED);
+        }
+
+        consume(LEFT_BRACE, "Expect '{' before class body.");
+
+        List<Stmt.Function> methods = new ArrayList<>();
+        while (!check(RIGHT_BRACE) && !isAtEnd()) {
+            methods.add(function("method"));
+        }
+
+        consume(RIGHT_BRACE, "Expect '}' after class body.");
+        return new Stmt.Class(name.lexeme, superclass, List.copyOf(methods), new InlineCache(), null);
+    }
+
     private Stmt statement() {
+        if (match(BREAK))
+            return breakStatement();
         if (match(IF))
             return ifStatement();
         if (match(FOR))
             return forStatement();
         if (match(PRINT))
             return printStatement();
+        if (match(RETURN))
+            return returnStatement();
         if (match(LEFT_BRACE))
             return new Stmt.Block(block());
         if (match(WHILE))
@@ -58,6 +95,15 @@ public class Parser {
         return expressionStatement();
     }
 
+    private Stmt breakStatement() {
+        Token keyword = previous();
+        if (loopDepth == 0) {
+            error(keyword, "Cannot break outside of a loop.");
+        }
+        consume(SEMICOLON, "Expect ';' after 'break'.");
+        return new Stmt.Break(keyword.line);
+    }
+
     private Stmt ifStatement() {
         consume(LEFT_PAREN, "Expect '(' after 'if'.");
         Expr condition = expression();
@@ -91,7 +137,7 @@ public class Parser {
         }
         consume(RIGHT_PAREN, "Expect ')' after for clauses");
 
-        Stmt body = statement();
+        Stmt body = loopBody();
 
         if (increment != null) {
             body = new Stmt.Block(Arrays.asList(body, new Stmt.Expression(increment)));
@@ -99,7 +145,7 @@ public class Parser {
 
         if (condition == null)
             condition = new Expr.Literal(true);
-        body = new Stmt.While(condition, body);
+        body = new Stmt.While(condition, body, 0);
 
         if (initializer != null) {
             body = new Stmt.Block(Arrays.asList(initializer, body));
@@ -118,6 +164,39 @@ public class Parser {
         return new Stmt.Print(value);
     }
 
+    private Stmt.Function function(String kind) {
+        Token name = consume(IDENTIFIER, "Expect " + kind + " name.");
+        consume(LEFT_PAREN, "Expect '(' after " + kind + " name.");
+        List<String> parameters = new ArrayList<>();
+        if (!check(RIGHT_PAREN)) {
+            do {
+                if (parameters.size() >= 255) {
+                    error(peek(), "Cannot have more than 255 parameters.");
+                }
+                parameters.add(consume(IDENTIFIER, "Expect parameter name.").lexeme);
+            } while (match(COMMA));
+        }
+        consume(RIGHT_PAREN, "Expect ')' after parameters.");
+
+        consume(LEFT_BRACE, "Expect '{' before " + kind + " body.");
+        // loops around the declaration cannot be left from within the body
+        boolean enclosingFunction = inFunction;
+        boolean enclosingInitializer = inInitializer;
+        int enclosingLoops = loopDepth;
+        List<Stmt> body;
+        try {
+            inFunction = true;
+            inInitializer = kind.equals("method") && name.lexeme.equals("init");
+            loopDepth = 0;
+            body = block();
+        } finally {
+            inFunction = enclosingFunction;
+            inInitializer = enclosingInitializer;
+            loopDepth = enclosingLoops;
+        }
+        return new Stmt.Function(name.lexeme, List.copyOf(parameters), body, null);
+    }
+
     private Stmt varDeclaration() {
         Token name = consume(IDENTIFIER, "Expect variable name.");
 
@@ -127,16 +206,42 @@ public class Parser {
         }
 
         consume(SEMICOLON, "Expect ';' after variable declaration.");
-        return new Stmt.Var(name, initializer);
+        return new Stmt.Var(name.lexeme, initializer, name.line);
     }
 
     private Stmt whileStatement() {
         consume(LEFT_PAREN, "Expect '(' after 'while'.");
         Expr condition = expression();
         consume(RIGHT_PAREN, "Expect ')' after condition.");
-        Stmt body = statement();
+        Stmt body = loopBody();
 
-        return new Stmt.While(condition, body);
+        return new Stmt.While(condition, body, 0);
+    }
+
+    private Stmt loopBody() {
+        loopDepth += 1;
+        try {
+            return statement();
+        } finally {
+            loopDepth -= 1;
+        }
+    }
+
+    private Stmt returnStatement() {
+        Token keyword = previous();
+        if (!inFunction) {
+            error(keyword, "Cannot return from top-level code.");
+        }
+
+        Expr value = null;
+        if (!check(SEMICOLON)) {
+            if (inInitializer) {
+                error(keyword, "Cannot return a value from an initializer.");
+            }
+            value = expression();
+        }
+        consume(SEMICOLON, "Expect ';' after return value.");
+        return new Stmt.Return(value, keyword.line);
     }
 
     private Stmt expressionStatement() {
@@ -164,8 +269,11 @@ public class Parser {
             Expr value = assignment();
 
             if (expr instanceof Expr.Variable) {
-                Token name = ((Expr.Variable) expr).name;
-                return new Expr.Assign(name, value);
+                Expr.Variable variable = (Expr.Variable) expr;
+                return new Expr.Assign(variable.name, value, variable.line, Resolver.UNRESOLVED);
+            } else if (expr instanceof Expr.Get) {
+                Expr.Get get = (Expr.Get) expr;
+                return new Expr.Set(get.object, get.name, value, new InlineCache(), get.line);
             }
 
             throw error(equals, "Invalid assignment target");
@@ -180,7 +288,7 @@ public class Parser {
         while (match(OR)) {
             Token operator = previous();
             Expr right = and();
-            expr = new Expr.Logical(expr, operator, right);
+            expr = new Expr.Logical(expr, operator.type, right, operator.line);
         }
 
         return expr;
@@ -192,7 +300,7 @@ public class Parser {
         while (match(AND)) {
             Token operator = previous();
             Expr right = equality();
-            expr = new Expr.Logical(expr, operator, right);
+            expr = new Expr.Logical(expr, operator.type, right, operator.line);
         }
         return expr;
     }
@@ -203,7 +311,7 @@ public class Parser {
         while (match(BANG_EQUAL, EQUAL_EQUAL)) {
             Token operator = previous();
             Expr right = comparison();
-            expr = new Expr.Binary(expr, operator, right);
+            expr = new Expr.Binary(expr, operator.type, right, operator.line, ValueType.ANY);
         }
 
         return expr;
@@ -215,7 +323,7 @@ public class Parser {
         while (match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
             Token operator = previous();
             Expr right = addition();
-            expr = new Expr.Binary(expr, operator, right);
+            expr = new Expr.Binary(expr, operator.type, right, operator.line, ValueType.ANY);
         }
 
         return expr;
@@ -227,7 +335,7 @@ public class Parser {
         while (match(MINUS, PLUS)) {
             Token operator = previous();
             Expr right = multiplication();
-            expr = new Expr.Binary(expr, operator, right);
+            expr = new Expr.Binary(expr, operator.type, right, operator.line, ValueType.ANY);
         }
 
         return expr;
@@ -239,7 +347,7 @@ public class Parser {
         while (match(SLASH, STAR)) {
             Token operator = previous();
             Expr right = unary();
-            expr = new Expr.Binary(expr, operator, right);
+            expr = new Expr.Binary(expr, operator.type, right, operator.line, ValueType.ANY);
         }
 
         return expr;
@@ -249,7 +357,16 @@ public class Parser {
         if (match(BANG, MINUS)) {
             Token operator = previous();
             Expr right = unary();
-            return new Expr.Unary(operator, right);
+            return new Expr.Unary(operator.type, right, operator.line);
+        }
+
+        if (match(SPAWN)) {
+            Token keyword = previous();
+            Expr expr = call();
+            if (!(expr instanceof Expr.Call)) {
+                throw error(keyword, "Expect function call after 'spawn'.");
+            }
+            return new Expr.Spawn((Expr.Call) expr, keyword.line);
         }
 
         return call();
@@ -261,6 +378,9 @@ public class Parser {
         while (true) {
             if (match(LEFT_PAREN)) {
                 expr = finishCall(expr);
+            } else if (match(DOT)) {
+                Token name = consume(IDENTIFIER, "Expect property name after '.'.");
+                expr = new Expr.Get(expr, name.lexeme, new InlineCache(), name.line);
             } else {
                 break;
             }
@@ -281,8 +401,18 @@ public class Parser {
             return new Expr.Literal(previous().literal);
         }
 
+        if (match(SUPER)) {
+            Token keyword = previous();
+            consume(DOT, "Expect '.' after 'super'.");
+            Token method = consume(IDENTIFIER, "Expect superclass method name.");
+            return new Expr.Super(method.lexeme, keyword.line, Resolver.UNRESOLVED, Resolver.UNRESOLVED);
+        }
+
+        if (match(THIS))
+            return new Expr.This(previous().line, Resolver.UNRESOLVED);
+
         if (match(IDENTIFIER)) {
-            return new Expr.Variable(previous());
+            return new Expr.Variable(previous().lexeme, previous().line, Resolver.UNRESOLVED);
         }
 
         if (match(LEFT_PAREN)) {
@@ -308,7 +438,7 @@ public class Parser {
         }
 
         Token paren = consume(RIGHT_PAREN, "Expect ')' after arguments.");
-        return new Expr.Call(callee, paren, arguments);
+        return new Expr.Call(callee, List.copyOf(arguments), paren.line);
     }
 
     private boolean match(TokenType... types) {
@@ -359,26 +489,35 @@ public class Parser {
         while (!isAtEnd()) {
             if (previous().type == SEMICOLON)
                 return;
-        }
 
-        switch (peek().type) {
-            case CLASS:
-            case FUN:
-            case VAR:
-            case FOR:
-            case IF:
-            case WHILE:
-            case PRINT:
-            case RETURN: return;
-        }
+            switch (peek().type) {
+                case CLASS:
+                case FUN:
+                case VAR:
+                case FOR:
+                case IF:
+                case WHILE:
+                case PRINT:
+                case RETURN:
+                case BREAK: return;
+            }
 
-        advance();
+            advance();
+        }
     }
 
     private ParseError error(Token token, String message) {
-        Ynk.error(token, message);
+        reporter.error(token, message);
         return new ParseError();
     }
 
-    private static class ParseError extends RuntimeException {}
+    /**
+     * Unwinds the parser to the next statement, after the error has been reported. It carries no message and no
+     * stack trace, which would only slow down parsing scripts with many errors.
+     */
+    private static class ParseError extends RuntimeException {
+        ParseError() {
+            super(null, null, false, false);
+        }
+    }
 }
@@ -0,0 +1,380 @@
+package com.github.micutio.jynk.parsing;
+
+import com.github.micutio.jynk.ast.Expr;
+import com.github.micutio.jynk.ast.Stmt;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds every use of a variable to its declaration, before the script runs.
+ *
+ * - Reads and writes of local variables record how many scopes up the variable lives, so that the interpreter goes
+ *   straight to that scope. Variables that are not declared in any enclosing local scope are looked up among the
+ *   globals directly.
+ * - Functions and classes record the local variables of enclosing functions and blocks they use. When the interpreter
+ *   creates a closure, it captures only those variables, see `Environment.capture()`, instead of the whole chain of
+ *   scopes it was declared in.
+ *
+ * A variable is bound to the innermost declaration that precedes it in the source, so variable declarations that run
+ * after a function was declared are not seen by it. Functions and classes declared later in an enclosing scope are the
+ * exception, so that functions declared in a block can call each other: a function captures them before their
+ * declaration has run, and they are nil until then. The interpreter runs a syntax tree that has not been resolved by
+ * searching all enclosing scopes at runtime.
+ */
+public class Resolver implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    /** Depth of variables that are not declared in any enclosing local scope, so they are looked up as globals. */
+    public static final int GLOBAL = -1;
+    /** Depth of variables in a syntax tree that has not been resolved, which are searched for at runtime. */
+    public static final int UNRESOLVED = -2;
+
+    // the function whose body is being resolved, or the top level of the script
+    private Body body = new Body(null, null);
+
+    public List<Stmt> resolve(List<Stmt> statements) {
+        List<Stmt> resolved = new ArrayList<>();
+        for (Stmt statement: statements) {
+            resolved.add(resolve(statement));
+        }
+        return List.copyOf(resolved);
+    }
+
+    /**
+     * @param statements statements of a resolved syntax tree, like the body of a function
+     * @return the names of the variables that functions and classes declared anywhere within the statements capture
+     */
+    public static Set<String> captured(List<Stmt> statements) {
+        Set<String> names = new HashSet<>();
+        collectCaptures(statements, names);
+        return names;
+    }
+
+    private static void collectCaptures(List<Stmt> statements, Set<String> names) {
+        for (Stmt statement: statements) {
+            collectCaptures(statement, names);
+        }
+    }
+
+    private static void collectCaptures(Stmt stmt, Set<String> names) {
+        switch (stmt.kind) {
+            case Stmt.BLOCK:
+                collectCaptures(((Stmt.Block) stmt).statements, names);
+                break;
+            case Stmt.IF:
+                Stmt.If branch = (Stmt.If) stmt;
+                collectCaptures(branch.thenBranch, names);
+                if (branch.elseBranch != null) {
+                    collectCaptures(branch.elseBranch, names);
+                }
+                break;
+            case Stmt.WHILE:
+                collectCaptures(((Stmt.While) stmt).body, names);
+                break;
+            case Stmt.FUNCTION:
+                Stmt.Function function = (Stmt.Function) stmt;
+                addCaptures(function.captures, names);
+                collectCaptures(function.body, names);
+                break;
+            case Stmt.CLASS:
+                Stmt.Class klass = (Stmt.Class) stmt;
+                addCaptures(klass.captures, names);
+                for (Stmt.Function method: klass.methods) {
+                    collectCaptures(method.body, names);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void addCaptures(List<Expr.Variable> captures, Set<String> names) {
+        if (captures == null) {
+            throw new IllegalArgumentException("The syntax tree has not been resolved.");
+        }
+        for (Expr.Variable variable: captures) {
+            names.add(variable.name);
+        }
+    }
+
+    private Stmt resolve(Stmt stmt) {
+        return stmt == null ? null : stmt.accept(this);
+    }
+
+    private Expr resolve(Expr expr) {
+        return expr.accept(this);
+    }
+
+    /**
+     * @param declared names that are declared when the scope begins, like parameters
+     * @param statements statements that run in the scope, which may declare more names
+     */
+    private void beginScope(Set<String> declared, List<Stmt> statements) {
+        body.scopes.add(declared);
+        Set<String> later = new HashSet<>();
+        for (Stmt statement: statements) {
+            if (statement instanceof Stmt.Function) {
+                later.add(((Stmt.Function) statement).name);
+            } else if (statement instanceof Stmt.Class) {
+                later.add(((Stmt.Class) statement).name);
+            }
+        }
+        body.later.add(later);
+    }
+
+    private void endScope() {
+        body.scopes.remove(body.scopes.size() - 1);
+        body.later.remove(body.later.size() - 1);
+    }
+
+    private void declare(String name) {
+        if (!body.scopes.isEmpty()) {
+            body.scopes.get(body.scopes.size() - 1).add(name);
+        }
+    }
+
+    private Stmt.Function resolveFunction(Stmt.Function stmt, Captures captures, boolean isMethod) {
+        Body enclosing = body;
+        try {
+            body = new Body(enclosing, captures);
+            // a call defines `this` and the parameters in the scope that the body runs in
+            Set<String> parameters = new HashSet<>(stmt.params);
+            if (isMethod) {
+                parameters.add("this");
+            }
+            beginScope(parameters, stmt.body);
+            List<Stmt> statements = resolve(stmt.body);
+            return new Stmt.Function(stmt.name, stmt.params, statements, List.copyOf(captures.variables.values()));
+        } finally {
+            body = enclosing;
+        }
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        beginScope(new HashSet<>(), stmt.statements);
+        try {
+            return new Stmt.Block(resolve(stmt.statements));
+        } finally {
+            endScope();
+        }
+    }
+
+    @Override
+    public Stmt visitBreakStmt(Stmt.Break stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        Expr.Variable superclass = null;
+        if (stmt.superclass != null) {
+            superclass = (Expr.Variable) resolve(stmt.superclass);
+        }
+        declare(stmt.name);
+
+        // all methods share one closure, which also holds `super`
+        Captures captures = new Captures(superclass != null);
+        List<Stmt.Function> methods = new ArrayList<>();
+        for (Stmt.Function method: stmt.methods) {
+            methods.add(resolveFunction(method, captures, true));
+        }
+        return new Stmt.Class(stmt.name, superclass, List.copyOf(methods), stmt.shapes,
+            List.copyOf(captures.variables.values()));
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        return new Stmt.Expression(resolve(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        // declared before the body is resolved, so that the function can call itself
+        declare(stmt.name);
+        return resolveFunction(stmt, new Captures(false), false);
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        return new Stmt.If(resolve(stmt.condition), resolve(stmt.thenBranch), resolve(stmt.elseBranch));
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        return new Stmt.Print(resolve(stmt.expression));
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        return stmt.value == null ? stmt : new Stmt.Return(resolve(stmt.value), stmt.line);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        // the initializer still sees an outer variable of the same name
+        Expr initializer = stmt.initializer == null ? null : resolve(stmt.initializer);
+        declare(stmt.name);
+        return new Stmt.Var(stmt.name, initializer, stmt.line);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        return new Stmt.While(resolve(stmt.condition), resolve(stmt.body), stmt.invariants);
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = resolve(expr.value);
+        return new Expr.Assign(expr.name, value, expr.line, body.depthOf(expr.name, expr.line));
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        return new Expr.Binary(resolve(expr.left), expr.operator, resolve(expr.right), expr.line, expr.operands);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        List<Expr> arguments = new ArrayList<>();
+        for (Expr argument: expr.arguments) {
+            arguments.add(resolve(argument));
+        }
+        return new Expr.Call(resolve(expr.callee), List.copyOf(arguments), expr.line);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        return new Expr.Get(resolve(expr.object), expr.name, expr.cache, expr.line);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        return new Expr.Grouping(resolve(expr.expression));
+    }
+
+    @Override
+    public Expr visitIncrementExpr(Expr.Increment expr) {
+        return new Expr.Increment(expr.name, expr.operator, expr.step, expr.line, body.depthOf(expr.name, expr.line));
+    }
+
+    @Override
+    public Expr visitInvariantExpr(Expr.Invariant expr) {
+        return new Expr.Invariant(resolve(expr.expression), expr.slot);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        return new Expr.Logical(resolve(expr.left), expr.operator, resolve(expr.right), expr.line);
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        return new Expr.Set(resolve(expr.object), expr.name, resolve(expr.value), expr.cache, expr.line);
+    }
+
+    @Override
+    public Expr visitSpawnExpr(Expr.Spawn expr) {
+        return new Expr.Spawn((Expr.Call) visitCallExpr(expr.call), expr.line);
+    }
+
+    @Override
+    public Expr visitSuperExpr(Expr.Super expr) {
+        return new Expr.Super(expr.method, expr.line, body.depthOf("super", expr.line),
+            body.depthOf("this", expr.line));
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return new Expr.This(expr.line, body.depthOf("this", expr.line));
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        return new Expr.Unary(expr.operator, resolve(expr.right), expr.line);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return new Expr.Variable(expr.name, expr.line, body.depthOf(expr.name, expr.line));
+    }
+
+    /**
+     * The local scopes of a function body, or of the top level of the script, that are being resolved.
+     * At runtime, the scope that the body of a function runs in is enclosed by the scope of its captured variables,
+     * which in turn is enclosed by the globals.
+     */
+    private static class Body {
+        final Body enclosing;
+        // variables of the closure, `null` at the top level
+        final Captures captures;
+        // names declared so far in each scope, innermost last
+        final List<Set<String>> scopes = new ArrayList<>();
+        // functions and classes declared anywhere in each scope, which nested functions may capture ahead of time
+        final List<Set<String>> later = new ArrayList<>();
+
+        Body(Body enclosing, Captures captures) {
+            this.enclosing = enclosing;
+            this.captures = captures;
+        }
+
+        /**
+         * Find the scope of a variable, capturing it from an enclosing function if necessary.
+         * @return the number of scopes between the current one and the variable, or `GLOBAL`
+         */
+        int depthOf(String name, int line) {
+            return depthOf(name, line, false);
+        }
+
+        /**
+         * @param isCaptured whether a nested function or class looks up the variable, which may then be a function or
+         *     class declared later in its scope
+         */
+        private int depthOf(String name, int line, boolean isCaptured) {
+            int depth = 0;
+            for (int i = scopes.size() - 1; i >= 0; i--) {
+                if (scopes.get(i).contains(name) || isCaptured && later.get(i).contains(name)) {
+                    return depth;
+                }
+                depth++;
+            }
+
+            if (captures == null) {
+                return GLOBAL;
+            }
+            if (captures.declares(name)) {
+                return depth;
+            }
+            // the enclosing body is still at the point where this function was declared
+            int outer = enclosing.depthOf(name, line, true);
+            if (outer == GLOBAL) {
+                return GLOBAL;
+            }
+            captures.variables.put(name, new Expr.Variable(name, line, outer));
+            return depth;
+        }
+    }
+
+    /**
+     * Variables that a closure captures, each one resolved at the declaration of the function or class.
+     */
+    private static class Captures {
+        final Map<String, Expr.Variable> variables = new LinkedHashMap<>();
+        final boolean hasSuper;
+
+        Captures(boolean hasSuper) {
+            this.hasSuper = hasSuper;
+        }
+
+        boolean declares(String name) {
+            return variables.containsKey(name) || hasSuper && name.equals("super");
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 public class GenerateAst {
     public static void main(String[] args) throws FileNotFoundException, UnsupportedEncodingException {
@@ -18,25 +19,41 @@ public class GenerateAst {
         defineAst(outputDir,
             "Expr",
             List.of(
-                "Assign   : Token name, Expr value",
-                "Binary   : Expr left, Token operator, Expr right",
-                "Call     : Expr callee, Token paren, List<Expr> arguments",
+                "Assign   : String name, Expr value, int line, int depth",
+                "Binary   : Expr left, TokenType operator, Expr right, int line, ValueType operands",
+                "Call     : Expr callee, List<Expr> arguments, int line",
+                "Get      : Expr object, String name, InlineCache cache, int line",
                 "Grouping : Expr expression",
+                "Increment : String name, TokenType operator, Object step, int line, int depth",
+                "Invariant : Expr expression, int slot",
                 "Literal  : Object value",
-                "Logical  : Expr left, Token operator, Expr right",
-                "Unary    : Token operator, Expr right",
-                "Variable : Token name"));
+                "Logical  : Expr left, TokenType operator, Expr right, int line",
+                "Set      : Expr object, String name, Expr value, InlineCache cache, int line",
+                "Spawn    : Call call, int line",
+                "Super    : String method, int line, int depth, int thisDepth",
+                "This     : int line, int depth",
+                "Unary    : TokenType operator, Expr right, int line",
+                "Variable : String name, int line, int depth"));
 
         defineAst(outputDir, "Stmt", List.of(
                 "Block      : List<Stmt> statements",
+                "Break      : int line",
+                "Class      : String name, Expr.Variable superclass, List<Stmt.Function> methods, InlineCache shapes,"
+                    + " List<Expr.Variable> captures",
                 "Expression : Expr expression",
-                "Function   : Token name, List<Token> params, List<Stmt> body",
+                "Function   : String name, List<String> params, List<Stmt> body, List<Expr.Variable> captures",
                 "If         : Expr condition, Stmt thenBranch, Stmt elseBranch",
                 "Print      : Expr expression",
-                "Var        : Token name, Expr initializer",
-                "While      : Expr condition, Stmt body"));
+                "Return     : Expr value, int line",
+                "Var        : String name, Expr initializer, int line",
+                "While      : Expr condition, Stmt body, int invariants"));
     }
 
+    /**
+     * Write the base class of a syntax tree with one final nested class per node type.
+     * Every node has a `kind` tag, so that engines can dispatch with a switch through `dispatch()` instead of the
+     * megamorphic virtual call of `accept()`. Tools that are not performance critical can keep using `accept()`.
+     */
     private static void defineAst(String outputDir, String baseName, List<String> types)
         throws FileNotFoundException, UnsupportedEncodingException {
         String path = outputDir + "/" + baseName + ".java";
@@ -44,13 +61,17 @@ public class GenerateAst {
 
         writer.println("package com.github.micutio.jynk.ast;");
         writer.println();
-        writer.println("import com.github.micutio.jynk.lexing.Token;");
+        writer.println("import com.github.micutio.jynk.lexing.TokenType;");
         writer.println();
         writer.println("import java.util.List;");
         writer.println();
         writer.println("public abstract class " + baseName + " {");
 
+        defineKinds(writer, baseName, types);
+        writer.println();
         defineVisitor(writer, baseName, types);
+        writer.println();
+        defineDispatch(writer, baseName, types);
 
         // the AST classes
         for (String type: types) {
@@ -67,6 +88,37 @@ public class GenerateAst {
         writer.close();
     }
 
+    private static void defineKinds(PrintWriter writer, String baseName, List<String> types) {
+        for (int i = 0; i < types.size(); i++) {
+            writer.println("    public static final int " + kindName(types.get(i)) + " = " + i + ";");
+        }
+        writer.println();
+        writer.println("    public final int kind;");
+        writer.println();
+        // only the nested node classes can extend the base class
+        writer.println("    private " + baseName + "(int kind) {");
+        writer.println("        this.kind = kind;");
+        writer.println("    }");
+    }
+
+    private static String kindName(String type) {
+        return type.split(":")[0].trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static void defineDispatch(PrintWriter writer, String baseName, List<String> types) {
+        String node = baseName.toLowerCase();
+        writer.println("    public static <R> R dispatch(" + baseName + " " + node + ", Visitor<R> visitor) {");
+        writer.println("        switch (" + node + ".kind) {");
+        for (String type: types) {
+            String typeName = type.split(":")[0].trim();
+            writer.println("            case " + kindName(type) + ": return visitor.visit" + typeName + baseName
+                + "((" + typeName + ") " + node + ");");
+        }
+        writer.println("            default: throw new IllegalStateException(\"Unknown kind \" + " + node + ".kind);");
+        writer.println("        }");
+        writer.println("    }");
+    }
+
     private static void defineVisitor(PrintWriter writer, String baseName, List<String> types) {
         writer.println("    public interface Visitor<R> {");
 
@@ -81,7 +133,7 @@ public class GenerateAst {
 
     private static void defineType(PrintWriter writer, String baseName, String className, String fieldList) {
         writer.println();
-        writer.println("    public static class " + className + " extends " + baseName + " {");
+        writer.println("    public static final class " + className + " extends " + baseName + " {");
 
         // fields
         String[] fields = fieldList.split(", ");
@@ -92,6 +144,7 @@ public class GenerateAst {
 
         // constructor
         writer.println("        public " + className + "(" + fieldList + ") {");
+        writer.println("            super(" + className.toUpperCase(Locale.ROOT) + ");");
         // store parameters in fields
         for (String field: fields) {
             String name = field.split(" ")[1];
@@ -1,4 +1,15 @@
 /**
  * Java-based interpreter for the `Ynk` programming language.
  */
-module com.github.micutio.jynk { }
\ No newline at end of file
+module com.github.micutio.jynk {
+    requires jdk.jfr;
+    // the Java compiler that jynkc compiles the generated code with
+    requires java.compiler;
+    // optional, SIMD array operations are used if the module is added at run time
+    requires static jdk.incubator.vector;
+
+    exports com.github.micutio.jynk;
+    exports com.github.micutio.jynk.ast;
+    exports com.github.micutio.jynk.compiler;
+    exports com.github.micutio.jynk.interpreter;
+}